@@ -0,0 +1,20 @@
+package cryptotools;
+
+import java.util.Random;
+
+/**
+ * Inputs shared by the benchmarks. Every benchmark seeds its own
+ * {@link Random} so runs compare like with like.
+ */
+class Benchmarks {
+
+	static final long SEED = 42;
+
+	static String randomLetters(final Random random, final int length) {
+		final char[] letters = new char[length];
+		for (int i = 0; i < length; i++) {
+			letters[i] = (char) ('a' + random.nextInt(26));
+		}
+		return new String(letters);
+	}
+}
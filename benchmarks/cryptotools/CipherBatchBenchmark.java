@@ -0,0 +1,62 @@
+package cryptotools;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A batch of 1000 messages of 16 letters, encrypted with one call each
+ * versus one batch call.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CipherBatchBenchmark {
+
+	@Param({ "shift", "playfair" })
+	String cipherName;
+
+	private Cipher cipher;
+
+	private String[] messages, results;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(Benchmarks.SEED);
+		cipher = "shift".equals(cipherName) ? new ShiftCipher(7)
+				: new PlayfairCipher("playfairexample");
+		messages = new String[1000];
+		for (int i = 0; i < messages.length; i++) {
+			messages[i] = Benchmarks.randomLetters(random, 16);
+		}
+		results = new String[messages.length];
+	}
+
+	@Benchmark
+	public String[] encrypt() {
+		for (int i = 0; i < messages.length; i++) {
+			results[i] = cipher.encrypt(messages[i]);
+		}
+		return results;
+	}
+
+	@Benchmark
+	public String[] encryptAll() {
+		cipher.encryptAll(messages, results);
+		return results;
+	}
+}
@@ -0,0 +1,86 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fermat and full factorization. Balanced semiprimes are found at once by
+ * Fermat's method; unbalanced ones walk a long way from sqrt(n) and are left
+ * to rho by IntegerFactorizer.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FactorizationBenchmark {
+
+	private long prime62, balanced62, unbalanced40;
+
+	private long smooth = 2L * 2 * 3 * 5 * 7 * 11 * 13 * 9973 * 65537;
+
+	private BigInteger balanced256;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(Benchmarks.SEED);
+		prime62 = BigInteger.probablePrime(62, random).longValue();
+		final long p = BigInteger.probablePrime(31, random).longValue();
+		balanced62 = p
+				* BigInteger.valueOf(p + 1000).nextProbablePrime().longValue();
+		unbalanced40 = BigInteger.probablePrime(17, random).longValue()
+				* BigInteger.probablePrime(23, random).longValue();
+		final BigInteger q = BigInteger.probablePrime(128, random);
+		balanced256 = q.multiply(q.add(BigInteger.ONE.shiftLeft(70))
+				.nextProbablePrime());
+	}
+
+	@Benchmark
+	public FermatFactor fermatPrime62() {
+		return FermatFactorizer.factor(prime62);
+	}
+
+	@Benchmark
+	public FermatFactor fermatBalanced62() {
+		return FermatFactorizer.factor(balanced62);
+	}
+
+	@Benchmark
+	public FermatFactor fermatUnbalanced40() {
+		return FermatFactorizer.factor(unbalanced40);
+	}
+
+	@Benchmark
+	public BigInteger[] fermatBalanced256() {
+		return FermatFactorizer.factor(balanced256);
+	}
+
+	@Benchmark
+	public PrimeFactorization factorSmooth() {
+		return IntegerFactorizer.factor(smooth);
+	}
+
+	@Benchmark
+	public PrimeFactorization factorBalanced62() {
+		return IntegerFactorizer.factor(balanced62);
+	}
+
+	@Benchmark
+	public PrimeFactorization factorUnbalanced40() {
+		return IntegerFactorizer.factor(unbalanced40);
+	}
+}
@@ -0,0 +1,134 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Greatest common divisors and modular inverses, one at a time and batched.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GcdFinderBenchmark {
+
+	// consecutive Fibonacci numbers are Euclid's worst case
+	private int intA = 1836311903, intB = 1134903170;
+
+	private long longA = 7540113804746346429L, longB = 4660046610375530309L;
+
+	@State(Scope.Thread)
+	public static class BigOperands {
+		@Param({ "256", "2048" })
+		int bits;
+
+		BigInteger a, b, prime, value;
+
+		@Setup
+		public void setUp() {
+			final Random random = new Random(Benchmarks.SEED);
+			a = new BigInteger(bits, random);
+			b = new BigInteger(bits, random);
+			prime = BigInteger.probablePrime(bits, random);
+			value = new BigInteger(bits - 1, random);
+		}
+	}
+
+	/**
+	 * 1000 values below a 62-bit prime.
+	 */
+	@State(Scope.Thread)
+	public static class LongBatch {
+		long modulus;
+
+		long[] values, inverses;
+
+		@Setup
+		public void setUp() {
+			final Random random = new Random(Benchmarks.SEED);
+			modulus = BigInteger.probablePrime(62, random).longValue();
+			values = new long[1000];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = 1 + (random.nextLong() >>> 2) % (modulus - 1);
+			}
+			inverses = new long[values.length];
+		}
+	}
+
+	/**
+	 * 256 moduli that are each the product of two 256-bit primes.
+	 */
+	@State(Scope.Thread)
+	public static class Moduli {
+		BigInteger[] moduli;
+
+		@Setup
+		public void setUp() {
+			final Random random = new Random(Benchmarks.SEED);
+			moduli = new BigInteger[256];
+			for (int i = 0; i < moduli.length; i++) {
+				moduli[i] = BigInteger.probablePrime(256, random).multiply(
+						BigInteger.probablePrime(256, random));
+			}
+		}
+	}
+
+	@Benchmark
+	public int computeGcdInt() {
+		return GcdFinder.computeGcd(intA, intB);
+	}
+
+	@Benchmark
+	public long computeGcdLong() {
+		return GcdFinder.computeGcd(longA, longB);
+	}
+
+	@Benchmark
+	public BigInteger computeGcdBig(final BigOperands state) {
+		return GcdFinder.computeGcd(state.a, state.b);
+	}
+
+	@Benchmark
+	public BigInteger bigIntegerModInverse(final BigOperands state) {
+		return state.value.modInverse(state.prime);
+	}
+
+	@Benchmark
+	public BigInteger modInverseBig(final BigOperands state) {
+		return GcdFinder.modInverse(state.value, state.prime);
+	}
+
+	@Benchmark
+	public long[] modInverseLong(final LongBatch state) {
+		for (int i = 0; i < state.values.length; i++) {
+			state.inverses[i] = GcdFinder.modInverse(state.values[i],
+					state.modulus);
+		}
+		return state.inverses;
+	}
+
+	@Benchmark
+	public long[] modInverseAllLong(final LongBatch state) {
+		return GcdFinder.modInverseAll(state.values, state.modulus);
+	}
+
+	@Benchmark
+	public BigInteger[] computeBatchGcd(final Moduli state) {
+		return GcdFinder.computeBatchGcd(state.moduli);
+	}
+}
@@ -0,0 +1,118 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Modular exponentiation across modulus widths, and the multiplications it
+ * is built from.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModularExponentiatorBenchmark {
+
+	// fields rather than constants so the JIT cannot fold the result
+	private int intBase = 3, intExponent = 2147483629, intModulus = 2147483647;
+
+	@State(Scope.Thread)
+	public static class LongModulus {
+		@Param({ "32", "62" })
+		int bits;
+
+		long modulus, exponent;
+
+		@Setup
+		public void setUp() {
+			final Random random = new Random(Benchmarks.SEED);
+			modulus = BigInteger.probablePrime(bits, random).longValue();
+			exponent = modulus - 2;
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class BigModulus {
+		@Param({ "512", "1024", "2048" })
+		int bits;
+
+		BigInteger modulus, base, exponent, montgomeryBase;
+
+		BigMontgomeryMultiplier montgomery;
+
+		FixedBaseExponentiator fixedBase;
+
+		@Setup
+		public void setUp() {
+			final Random random = new Random(Benchmarks.SEED);
+			modulus = BigInteger.probablePrime(bits, random);
+			base = new BigInteger(bits - 1, random);
+			exponent = new BigInteger(bits - 1, random);
+			montgomery = new BigMontgomeryMultiplier(modulus);
+			montgomeryBase = montgomery.toMontgomery(base);
+			fixedBase = new FixedBaseExponentiator(base, modulus, bits, 6);
+		}
+	}
+
+	@Benchmark
+	public int computeModExpInt() {
+		return ModularExponentiator.computeModExp(intBase, intExponent,
+				intModulus);
+	}
+
+	@Benchmark
+	public long computeModExpLong(final LongModulus state) {
+		return ModularExponentiator.computeModExp(3, state.exponent,
+				state.modulus);
+	}
+
+	@Benchmark
+	public BigInteger computeModExpBig(final BigModulus state) {
+		return ModularExponentiator.computeModExp(state.base, state.exponent,
+				state.modulus);
+	}
+
+	/**
+	 * 64 chained products reduced with {@link BigInteger#mod}.
+	 */
+	@Benchmark
+	public BigInteger multiplyModX64(final BigModulus state) {
+		BigInteger product = state.base;
+		for (int i = 0; i < 64; i++) {
+			product = product.multiply(state.base).mod(state.modulus);
+		}
+		return product;
+	}
+
+	/**
+	 * 64 chained products in Montgomery form.
+	 */
+	@Benchmark
+	public BigInteger montgomeryMultiplyX64(final BigModulus state) {
+		BigInteger product = state.montgomeryBase;
+		for (int i = 0; i < 64; i++) {
+			product = state.montgomery.multiply(product, state.montgomeryBase);
+		}
+		return product;
+	}
+
+	@Benchmark
+	public BigInteger fixedBaseModExp(final BigModulus state) {
+		return state.fixedBase.modExp(state.exponent);
+	}
+}
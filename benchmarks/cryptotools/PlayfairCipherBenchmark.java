@@ -0,0 +1,53 @@
+package cryptotools;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PlayfairCipher encryption and decryption across message sizes.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayfairCipherBenchmark {
+
+	@Param({ "16", "1024", "65536" })
+	int size;
+
+	private PlayfairCipher cipher;
+
+	private String plaintext, ciphertext;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(Benchmarks.SEED);
+		cipher = new PlayfairCipher("playfairexample");
+		plaintext = Benchmarks.randomLetters(random, size);
+		ciphertext = cipher.encrypt(plaintext);
+	}
+
+	@Benchmark
+	public String encrypt() {
+		return cipher.encrypt(plaintext);
+	}
+
+	@Benchmark
+	public String decrypt() {
+		return cipher.decrypt(ciphertext);
+	}
+}
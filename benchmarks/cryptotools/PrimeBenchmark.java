@@ -0,0 +1,65 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Prime sieving at both ends of its range and Miller-Rabin on primes, which
+ * run every witness.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrimeBenchmark {
+
+	private int prime31;
+
+	private long prime62;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(Benchmarks.SEED);
+		prime31 = BigInteger.probablePrime(31, random).intValue();
+		prime62 = BigInteger.probablePrime(62, random).longValue();
+	}
+
+	@Benchmark
+	public long countPrimesFrom0() {
+		return PrimeSieve.countPrimes(0, 1 << 24);
+	}
+
+	/**
+	 * Near 2^40 every base prime crosses the segments.
+	 */
+	@Benchmark
+	public long countPrimesTo2e40() {
+		return PrimeSieve.countPrimes(PrimeSieve.LIMIT - (1 << 24),
+				PrimeSieve.LIMIT);
+	}
+
+	@Benchmark
+	public boolean isPrime31() {
+		return PrimalityTester.isPrime(prime31);
+	}
+
+	@Benchmark
+	public boolean isPrime62() {
+		return PrimalityTester.isPrime(prime62);
+	}
+}
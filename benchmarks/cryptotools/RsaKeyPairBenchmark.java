@@ -0,0 +1,55 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * RSA private-key operation with and without the CRT, on the same key and
+ * ciphertext.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RsaKeyPairBenchmark {
+
+	@Param({ "1024", "2048" })
+	int bits;
+
+	private RsaKeyPair keyPair;
+
+	private BigInteger ciphertext;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(Benchmarks.SEED);
+		keyPair = RsaKeyPair.generate(bits,
+				RsaKeyPair.DEFAULT_PUBLIC_EXPONENT, random);
+		ciphertext = new BigInteger(bits - 1, random);
+	}
+
+	@Benchmark
+	public BigInteger decrypt() {
+		return keyPair.decrypt(ciphertext);
+	}
+
+	@Benchmark
+	public BigInteger decryptWithoutCrt() {
+		return keyPair.decryptWithoutCrt(ciphertext);
+	}
+}
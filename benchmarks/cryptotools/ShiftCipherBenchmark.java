@@ -0,0 +1,80 @@
+package cryptotools;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ShiftCipher encryption, decryption and key cracking across message sizes.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class ShiftCipherBenchmark {
+
+	@Param({ "16", "1024", "65536" })
+	int size;
+
+	private ShiftCipher cipher;
+
+	private String plaintext, ciphertext;
+
+	private char[] chars, output;
+
+	private byte[] bytes;
+
+	@Setup
+	public void setUp() {
+		final Random random = new Random(Benchmarks.SEED);
+		cipher = new ShiftCipher(7);
+		plaintext = Benchmarks.randomLetters(random, size);
+		ciphertext = cipher.encrypt(plaintext);
+		chars = plaintext.toCharArray();
+		output = new char[size];
+		bytes = plaintext.getBytes(StandardCharsets.US_ASCII);
+	}
+
+	@Benchmark
+	public String encrypt() {
+		return cipher.encrypt(plaintext);
+	}
+
+	@Benchmark
+	public String decrypt() {
+		return cipher.decrypt(ciphertext);
+	}
+
+	@Benchmark
+	public char[] encryptInto() {
+		cipher.encryptInto(chars, 0, chars.length, output, 0);
+		return output;
+	}
+
+	@Benchmark
+	public byte[] encryptIntoDecryptIntoBytes() {
+		// in place, so decrypt back to keep the input valid
+		cipher.encryptInto(bytes, 0, bytes.length, bytes, 0);
+		cipher.decryptInto(bytes, 0, bytes.length, bytes, 0);
+		return bytes;
+	}
+
+	@Benchmark
+	public ShiftCipherCracker.KeyScore[] crack() {
+		return ShiftCipherCracker.crack(ciphertext);
+	}
+}
@@ -0,0 +1,114 @@
+package cryptotools;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ShiftCipher bulk paths against memory bandwidth. arraycopy moves the
+ * same bytes with no work on them, so the encryptInto/arraycopy ratio is how
+ * close a path comes to bandwidth. 4 MB messages no longer fit in cache.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ShiftCipherBulkBenchmark {
+
+	@State(Scope.Thread)
+	public static class Messages {
+		@Param({ "1024", "65536", "4194304" })
+		int size;
+
+		ShiftCipher cipher;
+
+		String plaintext;
+
+		byte[] bytes, output;
+
+		ByteBuffer buffer;
+
+		@Setup
+		public void setUp() {
+			final Random random = new Random(Benchmarks.SEED);
+			cipher = new ShiftCipher(7);
+			plaintext = Benchmarks.randomLetters(random, size);
+			bytes = plaintext.getBytes(StandardCharsets.US_ASCII);
+			output = new byte[size];
+			buffer = ByteBuffer.allocateDirect(size);
+			buffer.put(bytes).flip();
+		}
+	}
+
+	/**
+	 * Selects the bulk path: the Vector API kernels or the portable eight
+	 * bytes at a time.
+	 */
+	@State(Scope.Thread)
+	public static class Path {
+		@Param({ "vector", "swar" })
+		String path;
+
+		@Setup
+		public void setUp() {
+			if ("vector".equals(path) && !ShiftCipher.isVectorSupported()) {
+				throw new IllegalStateException("Vector API unavailable; "
+						+ "run with --add-modules jdk.incubator.vector");
+			}
+			ShiftCipher.setVectorEnabled("vector".equals(path));
+		}
+
+		@TearDown
+		public void tearDown() {
+			ShiftCipher.setVectorEnabled(true);
+		}
+	}
+
+	@Benchmark
+	public byte[] arraycopy(final Messages messages) {
+		System.arraycopy(messages.bytes, 0, messages.output, 0,
+				messages.size);
+		return messages.output;
+	}
+
+	@Benchmark
+	public byte[] encryptInto(final Messages messages, final Path path) {
+		messages.cipher.encryptInto(messages.bytes, 0, messages.size,
+				messages.output, 0);
+		return messages.output;
+	}
+
+	/**
+	 * In place in a direct buffer, so decrypt back to keep the input valid.
+	 */
+	@Benchmark
+	public ByteBuffer encryptDecryptBuffer(final Messages messages,
+			final Path path) {
+		messages.cipher.encrypt(messages.buffer);
+		messages.cipher.decrypt(messages.buffer);
+		return messages.buffer;
+	}
+
+	/**
+	 * Adds the copies into and out of the String to the work.
+	 */
+	@Benchmark
+	public String encrypt(final Messages messages, final Path path) {
+		return messages.cipher.encrypt(messages.plaintext);
+	}
+}
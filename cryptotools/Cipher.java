@@ -1,7 +1,54 @@
 package cryptotools;
 
+import java.util.List;
+
 public interface Cipher {
 	String encrypt(String plaintext);
 
 	String decrypt(String ciphertext);
+
+	/**
+	 * Encrypts each plaintext as {@link #encrypt(String)} would, sharing one
+	 * working buffer across the batch.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a plaintext is invalid
+	 */
+	List<String> encryptAll(List<? extends CharSequence> plaintexts);
+
+	/**
+	 * Encrypts <code>plaintexts[i]</code> into <code>ciphertexts[i]</code>
+	 * for every i. If a plaintext is invalid, the ciphertexts before it have
+	 * been written when the exception is thrown.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a plaintext is invalid
+	 */
+	void encryptAll(CharSequence[] plaintexts, String[] ciphertexts);
+
+	/**
+	 * Decrypts each ciphertext as {@link #decrypt(String)} would, sharing one
+	 * working buffer across the batch.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if a ciphertext is invalid
+	 */
+	List<String> decryptAll(List<? extends CharSequence> ciphertexts);
+
+	/**
+	 * Decrypts <code>ciphertexts[i]</code> into <code>plaintexts[i]</code>
+	 * for every i; see {@link #encryptAll(CharSequence[], String[])}.
+	 */
+	void decryptAll(CharSequence[] ciphertexts, String[] plaintexts);
+
+	/**
+	 * Creates a transform that formats and encrypts a plaintext stream. See
+	 * {@link CipherStreams} for the stream entry points.
+	 */
+	CipherTransform newEncryptor();
+
+	/**
+	 * Creates a transform that decrypts a ciphertext stream.
+	 */
+	CipherTransform newDecryptor();
 }
@@ -0,0 +1,154 @@
+package cryptotools;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out shared cipher instances so callers do not rebuild lookup tables
+ * for every message. Ciphers hold no state between calls, so one instance can
+ * serve any number of threads.
+ * <p>
+ * All 26 shift ciphers are built once per JVM. Playfair ciphers are kept in a
+ * least-recently-used cache of bounded size per factory; the hit, miss and
+ * eviction counts show whether the bound fits the working set of keys.
+ */
+public class CipherFactory {
+
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private static final ShiftCipher[] SHIFT_CIPHERS = new ShiftCipher[26];
+
+	static {
+		for (int key = 0; key < SHIFT_CIPHERS.length; key++) {
+			SHIFT_CIPHERS[key] = new ShiftCipher(key);
+		}
+	}
+
+	private static final CipherFactory DEFAULT_FACTORY = new CipherFactory(
+			DEFAULT_CAPACITY);
+
+	private final int capacity;
+
+	// access-ordered, so iteration starts at the least recently used key
+	private final LinkedHashMap<String, PlayfairCipher> playfairCiphers;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	/**
+	 * @param capacity
+	 *            most Playfair ciphers to keep
+	 */
+	public CipherFactory(final int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.capacity = capacity;
+		playfairCiphers = new LinkedHashMap<String, PlayfairCipher>(16, 0.75f,
+				true) {
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, PlayfairCipher> eldest) {
+				if (size() > CipherFactory.this.capacity) {
+					evictions.incrementAndGet();
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns a factory shared by the whole JVM, holding up to
+	 * {@link #DEFAULT_CAPACITY} Playfair ciphers.
+	 */
+	public static CipherFactory getDefault() {
+		return DEFAULT_FACTORY;
+	}
+
+	/**
+	 * Returns the shared shift cipher for <code>key</code>.
+	 *
+	 * @param key
+	 *            key within [0,25]
+	 */
+	public static ShiftCipher getShiftCipher(final int key) {
+		if (key < 0 || key >= SHIFT_CIPHERS.length) {
+			throw new IllegalArgumentException("Key must be within [0,25]");
+		}
+		return SHIFT_CIPHERS[key];
+	}
+
+	/**
+	 * Returns a cached Playfair cipher for <code>key</code>, building it on a
+	 * miss. Building happens outside the cache lock, so a slow miss does not
+	 * hold up other threads; if two threads miss on the same key at once, the
+	 * first cipher stored wins.
+	 *
+	 * @param key
+	 *            key as accepted by {@link PlayfairCipher#PlayfairCipher(String)}
+	 */
+	public PlayfairCipher getPlayfairCipher(String key) {
+		key = key.trim();
+		PlayfairCipher cipher;
+		synchronized (playfairCiphers) {
+			cipher = playfairCiphers.get(key);
+		}
+		if (cipher != null) {
+			hits.incrementAndGet();
+			return cipher;
+		}
+
+		misses.incrementAndGet();
+		final PlayfairCipher created = new PlayfairCipher(key);
+		synchronized (playfairCiphers) {
+			cipher = playfairCiphers.putIfAbsent(key, created);
+		}
+		return cipher != null ? cipher : created;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of Playfair ciphers currently cached.
+	 */
+	public int size() {
+		synchronized (playfairCiphers) {
+			return playfairCiphers.size();
+		}
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Empties the Playfair cache; the counters keep running.
+	 */
+	public void clear() {
+		synchronized (playfairCiphers) {
+			playfairCiphers.clear();
+		}
+	}
+
+	public String toString() {
+		return "CipherFactory(size=" + size() + "/" + capacity + ", hits="
+				+ getHitCount() + ", misses=" + getMissCount()
+				+ ", evictions=" + getEvictionCount() + ")";
+	}
+}
@@ -0,0 +1,145 @@
+package cryptotools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous batch encryption for callers that should not block, such as
+ * request handlers waiting on I/O. A batch is cut into slices that are
+ * encrypted concurrently with {@link Cipher#encryptAll(List)}, and the
+ * returned future completes with every result in input order.
+ * <p>
+ * Slices run on virtual threads when the JVM has them (Java 21 and later), so
+ * a burst of batches costs no more than the work itself; on older JVMs they
+ * run on a shared pool of daemon threads.
+ */
+public class CipherFutures {
+
+	/**
+	 * Messages encrypted by one task unless a slice size is given.
+	 */
+	public static final int DEFAULT_SLICE_SIZE = 1024;
+
+	private static final ExecutorService EXECUTOR = createExecutor();
+
+	/**
+	 * Looks up Executors.newVirtualThreadPerTaskExecutor() reflectively so the
+	 * class still loads on JVMs without virtual threads.
+	 */
+	private static ExecutorService createExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod(
+					"newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(new ThreadFactory() {
+				public Thread newThread(final Runnable r) {
+					final Thread thread = new Thread(r, "cipher-futures");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the executor the asynchronous methods run on.
+	 */
+	public static ExecutorService getExecutor() {
+		return EXECUTOR;
+	}
+
+	public static CompletableFuture<List<String>> encryptAllAsync(
+			final Cipher cipher, final List<? extends CharSequence> plaintexts) {
+		return encryptAllAsync(cipher, plaintexts, DEFAULT_SLICE_SIZE);
+	}
+
+	/**
+	 * Encrypts <code>plaintexts</code> in slices of <code>sliceSize</code>
+	 * messages. The future completes exceptionally if any plaintext is
+	 * invalid. The list must not change until the future completes.
+	 */
+	public static CompletableFuture<List<String>> encryptAllAsync(
+			final Cipher cipher, final List<? extends CharSequence> plaintexts,
+			final int sliceSize) {
+		return transformAllAsync(cipher, plaintexts, sliceSize, true);
+	}
+
+	public static CompletableFuture<List<String>> decryptAllAsync(
+			final Cipher cipher, final List<? extends CharSequence> ciphertexts) {
+		return decryptAllAsync(cipher, ciphertexts, DEFAULT_SLICE_SIZE);
+	}
+
+	/**
+	 * Decrypts <code>ciphertexts</code> in slices; see
+	 * {@link #encryptAllAsync(Cipher, List, int)}.
+	 */
+	public static CompletableFuture<List<String>> decryptAllAsync(
+			final Cipher cipher, final List<? extends CharSequence> ciphertexts,
+			final int sliceSize) {
+		return transformAllAsync(cipher, ciphertexts, sliceSize, false);
+	}
+
+	private static CompletableFuture<List<String>> transformAllAsync(
+			final Cipher cipher, final List<? extends CharSequence> texts,
+			final int sliceSize, final boolean encrypt) {
+		if (sliceSize < 1) {
+			throw new IllegalArgumentException("Slice size must be positive");
+		}
+
+		final List<CompletableFuture<List<String>>> slices = new ArrayList<CompletableFuture<List<String>>>();
+		for (int from = 0; from < texts.size(); from += sliceSize) {
+			final List<? extends CharSequence> slice = texts.subList(from,
+					Math.min(from + sliceSize, texts.size()));
+			slices.add(CompletableFuture.supplyAsync(
+					new Supplier<List<String>>() {
+						public List<String> get() {
+							return encrypt ? cipher.encryptAll(slice) : cipher
+									.decryptAll(slice);
+						}
+					}, EXECUTOR));
+		}
+
+		return CompletableFuture.allOf(
+				slices.toArray(new CompletableFuture<?>[slices.size()]))
+				.thenApply(new Function<Void, List<String>>() {
+					public List<String> apply(final Void ignored) {
+						final List<String> results = new ArrayList<String>(
+								texts.size());
+						for (CompletableFuture<List<String>> slice : slices) {
+							results.addAll(slice.join());
+						}
+						return results;
+					}
+				});
+	}
+
+	/**
+	 * Encrypts one message on the executor.
+	 */
+	public static CompletableFuture<String> encryptAsync(final Cipher cipher,
+			final String plaintext) {
+		return CompletableFuture.supplyAsync(new Supplier<String>() {
+			public String get() {
+				return cipher.encrypt(plaintext);
+			}
+		}, EXECUTOR);
+	}
+
+	/**
+	 * Decrypts one message on the executor.
+	 */
+	public static CompletableFuture<String> decryptAsync(final Cipher cipher,
+			final String ciphertext) {
+		return CompletableFuture.supplyAsync(new Supplier<String>() {
+			public String get() {
+				return cipher.decrypt(ciphertext);
+			}
+		}, EXECUTOR);
+	}
+}
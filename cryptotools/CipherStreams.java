@@ -0,0 +1,100 @@
+package cryptotools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Streams text through a {@link Cipher} in fixed-size chunks, so memory use
+ * stays constant regardless of the message length.
+ * <p>
+ * Encryption formats the input as it goes: ASCII letters are lowercased and
+ * every other character is dropped. Decryption accepts only ciphertext
+ * characters. None of the methods close the streams they are given.
+ */
+public class CipherStreams {
+
+	private static final int BUFFER_SIZE = 8192;
+
+	public static void encrypt(final Cipher cipher, final Reader in,
+			final Writer out) throws IOException {
+		transform(cipher.newEncryptor(), in, out);
+	}
+
+	public static void decrypt(final Cipher cipher, final Reader in,
+			final Writer out) throws IOException {
+		transform(cipher.newDecryptor(), in, out);
+	}
+
+	/**
+	 * Encrypts an ASCII byte stream.
+	 */
+	public static void encrypt(final Cipher cipher, final InputStream in,
+			final OutputStream out) throws IOException {
+		transform(cipher.newEncryptor(), in, out);
+	}
+
+	/**
+	 * Decrypts an ASCII byte stream.
+	 */
+	public static void decrypt(final Cipher cipher, final InputStream in,
+			final OutputStream out) throws IOException {
+		transform(cipher.newDecryptor(), in, out);
+	}
+
+	/**
+	 * Runs the bytes of <code>in</code> through a transform as they are,
+	 * without decoding them to characters.
+	 */
+	private static void transform(final CipherTransform transform,
+			final InputStream in, final OutputStream out) throws IOException {
+		final byte[] inBytes = new byte[BUFFER_SIZE];
+		final byte[] outBytes = new byte[BUFFER_SIZE
+				* CipherTransform.MAX_OUTPUT_PER_INPUT];
+		final ByteBuffer inBuffer = ByteBuffer.wrap(inBytes);
+		final ByteBuffer outBuffer = ByteBuffer.wrap(outBytes);
+
+		int count;
+		while ((count = in.read(inBytes)) != -1) {
+			inBuffer.clear().limit(count);
+			while (inBuffer.hasRemaining()) {
+				transform.update(inBuffer, outBuffer);
+				out.write(outBytes, 0, outBuffer.position());
+				outBuffer.clear();
+			}
+		}
+
+		transform.finish(outBuffer);
+		out.write(outBytes, 0, outBuffer.position());
+	}
+
+	/**
+	 * Runs everything <code>in</code> produces through a transform, then
+	 * finishes it.
+	 */
+	public static void transform(final CipherTransform transform,
+			final Reader in, final Writer out) throws IOException {
+		final char[] inChars = new char[BUFFER_SIZE];
+		final char[] outChars = new char[BUFFER_SIZE
+				* CipherTransform.MAX_OUTPUT_PER_INPUT];
+		final CharBuffer inBuffer = CharBuffer.wrap(inChars);
+		final CharBuffer outBuffer = CharBuffer.wrap(outChars);
+
+		int count;
+		while ((count = in.read(inChars)) != -1) {
+			inBuffer.clear().limit(count);
+			while (inBuffer.hasRemaining()) {
+				transform.update(inBuffer, outBuffer);
+				out.write(outChars, 0, outBuffer.position());
+				outBuffer.clear();
+			}
+		}
+
+		transform.finish(outBuffer);
+		out.write(outChars, 0, outBuffer.position());
+	}
+}
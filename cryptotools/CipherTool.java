@@ -0,0 +1,270 @@
+package cryptotools;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Command-line tool that encrypts or decrypts files, or whole directory trees,
+ * with a shift or Playfair cipher.
+ * <p>
+ * Inputs are memory-mapped in windows of at most {@link #WINDOW_SIZE} bytes,
+ * so files of any size (including over 2 GB, the limit of a single mapping)
+ * are read without copying them onto the heap, and the ciphers work on the
+ * mapped bytes directly. Output goes out through a direct buffer. Files are
+ * processed in parallel on the common fork/join pool, and the total
+ * throughput is reported at the end.
+ * <p>
+ * Input is ASCII text. Encryption formats it on the way, as
+ * {@link CipherStreams} does: letters are lowercased and everything else is
+ * dropped. Decryption accepts only ciphertext letters.
+ */
+public class CipherTool {
+
+	/**
+	 * Bytes mapped at a time.
+	 */
+	public static final int WINDOW_SIZE = 1 << 26;
+
+	/**
+	 * Size of the output buffer.
+	 */
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 18;
+
+	private static final String USAGE = "Usage: java cryptotools.CipherTool "
+			+ "(encrypt|decrypt) (shift <0-25>|playfair <key>) <input> <output>\n"
+			+ "If <input> is a directory, every file under it is written to "
+			+ "the same relative path under <output>.";
+
+	/**
+	 * Encrypts or decrypts one file and returns the number of bytes read. The
+	 * output is written to a temporary file next to <code>output</code> and
+	 * moved into place once it is complete, so a failure leaves no partial
+	 * output behind, any existing output is kept, and the output may be the
+	 * input itself.
+	 */
+	static long transformFile(final Cipher cipher, final boolean encrypt,
+			final Path input, final Path output) throws IOException {
+		final Path parent = output.toAbsolutePath().getParent();
+		final String prefix = "." + output.getFileName() + ".";
+		Path temp;
+		FileChannel out;
+		while (true) {
+			// a new file rather than Files.createTempFile, which would make
+			// the output readable by its owner only
+			temp = parent.resolve(prefix
+					+ Long.toHexString(ThreadLocalRandom.current().nextLong())
+					+ ".tmp");
+			try {
+				out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+						StandardOpenOption.WRITE);
+				break;
+			} catch (FileAlreadyExistsException e) {
+				// drawn again
+			}
+		}
+		boolean moved = false;
+		try {
+			final long size;
+			try (FileChannel channel = out) {
+				size = transformWindows(cipher, encrypt, input, channel);
+			}
+			Files.move(temp, output, StandardCopyOption.ATOMIC_MOVE);
+			moved = true;
+			return size;
+		} finally {
+			if (!moved) {
+				Files.deleteIfExists(temp);
+			}
+		}
+	}
+
+	private static long transformWindows(final Cipher cipher,
+			final boolean encrypt, final Path input, final FileChannel out)
+			throws IOException {
+		final CipherTransform transform = encrypt ? cipher.newEncryptor()
+				: cipher.newDecryptor();
+		final ByteBuffer outBytes = ByteBuffer
+				.allocateDirect(OUTPUT_BUFFER_SIZE);
+
+		try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+			final long size = in.size();
+			for (long position = 0; position < size; position += WINDOW_SIZE) {
+				// the window goes straight into the transform as ASCII bytes
+				final MappedByteBuffer window = in.map(
+						FileChannel.MapMode.READ_ONLY, position,
+						Math.min(WINDOW_SIZE, size - position));
+				while (window.hasRemaining()) {
+					// returns once the output buffer is full
+					transform.update(window, outBytes);
+					write(outBytes, out);
+				}
+			}
+			transform.finish(outBytes);
+			write(outBytes, out);
+			return size;
+		}
+	}
+
+	/**
+	 * Writes the bytes in <code>bytes</code> to the channel and clears the
+	 * buffer.
+	 */
+	private static void write(final ByteBuffer bytes, final FileChannel out)
+			throws IOException {
+		bytes.flip();
+		while (bytes.hasRemaining()) {
+			out.write(bytes);
+		}
+		bytes.clear();
+	}
+
+	/**
+	 * Lists the files to transform as pairs of input and output paths,
+	 * creating output directories as needed.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if <code>input</code> is a directory and <code>output</code>
+	 *             lies inside it, where the walk would keep descending into
+	 *             the directories it creates
+	 */
+	static List<Path[]> listFiles(final Path input, final Path output)
+			throws IOException {
+		final List<Path[]> files = new ArrayList<Path[]>();
+		if (!Files.isDirectory(input)) {
+			files.add(new Path[] { input, output });
+			return files;
+		}
+		final Path realInput = input.toRealPath();
+		final Path realOutput = toRealPath(output);
+		if (realOutput.startsWith(realInput) && !realOutput.equals(realInput)) {
+			throw new IllegalArgumentException("Output " + output
+					+ " is inside input " + input);
+		}
+		Files.walkFileTree(input, new SimpleFileVisitor<Path>() {
+			public FileVisitResult preVisitDirectory(final Path dir,
+					final BasicFileAttributes attrs) throws IOException {
+				Files.createDirectories(output.resolve(input.relativize(dir)));
+				return FileVisitResult.CONTINUE;
+			}
+
+			public FileVisitResult visitFile(final Path file,
+					final BasicFileAttributes attrs) {
+				if (attrs.isRegularFile()) {
+					files.add(new Path[] { file,
+							output.resolve(input.relativize(file)) });
+				}
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		return files;
+	}
+
+	/**
+	 * Returns the real path of <code>path</code>, which need not exist yet:
+	 * its deepest existing ancestor is resolved, links included, and the
+	 * rest is appended.
+	 */
+	private static Path toRealPath(final Path path) throws IOException {
+		Path existing = path.toAbsolutePath().normalize();
+		Path rest = existing.getFileSystem().getPath("");
+		while (!Files.exists(existing)) {
+			rest = existing.getFileName().resolve(rest);
+			existing = existing.getParent();
+		}
+		return existing.toRealPath().resolve(rest);
+	}
+
+	private static Cipher createCipher(final String type, final String key) {
+		if (type.equals("shift")) {
+			return CipherFactory.getShiftCipher(Integer.parseInt(key));
+		}
+		if (type.equals("playfair")) {
+			return CipherFactory.getDefault().getPlayfairCipher(key);
+		}
+		throw new IllegalArgumentException("Unknown cipher: " + type);
+	}
+
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		if (args.length != 5
+				|| !(args[0].equals("encrypt") || args[0].equals("decrypt"))) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+
+		final boolean encrypt = args[0].equals("encrypt");
+		final Cipher cipher;
+		try {
+			cipher = createCipher(args[1], args[2]);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(1);
+			return;
+		}
+		final Path input = Paths.get(args[3]);
+		final Path output = Paths.get(args[4]);
+
+		final long start = System.nanoTime();
+		final List<Path[]> files;
+		try {
+			files = listFiles(input, output);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+			return;
+		}
+		final List<Future<Long>> results = new ArrayList<Future<Long>>();
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		for (final Path[] file : files) {
+			results.add(pool.submit(new Callable<Long>() {
+				public Long call() throws IOException {
+					return transformFile(cipher, encrypt, file[0], file[1]);
+				}
+			}));
+		}
+
+		long bytes = 0;
+		int failures = 0;
+		for (int i = 0; i < files.size(); i++) {
+			try {
+				bytes += results.get(i).get();
+			} catch (ExecutionException e) {
+				// the pool may wrap the exception thrown by the task
+				Throwable cause = e.getCause();
+				while (cause.getCause() != null) {
+					cause = cause.getCause();
+				}
+				System.err.println(files.get(i)[0] + ": " + cause.getMessage());
+				failures++;
+			}
+		}
+		final double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("%d file(s), %.1f MB in %.2f s (%.1f MB/s)%n",
+				files.size() - failures, bytes / 1e6, seconds, bytes / 1e6
+						/ seconds);
+		if (failures > 0) {
+			System.err.println(failures + " file(s) failed");
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package cryptotools;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * Incremental encryption or decryption of a character stream. A transform
+ * carries whatever state its cipher needs across chunk boundaries (such as a
+ * pending Playfair digraph), so a message of any length can be fed through it
+ * in fixed-size pieces.
+ * <p>
+ * Text can be given as characters or as ASCII bytes; a byte is read as the
+ * character with the same value. The byte methods take heap or direct
+ * buffers, so data read from a channel is transformed without decoding. A
+ * transform is used for a single message and is not thread-safe, and one
+ * message should stick to one kind of buffer.
+ */
+public interface CipherTransform {
+
+	/**
+	 * The largest number of output characters a transform produces for one
+	 * input character, or when finishing.
+	 */
+	int MAX_OUTPUT_PER_INPUT = 4;
+
+	/**
+	 * Transforms characters from <code>in</code> into <code>out</code>. Returns
+	 * when <code>in</code> is exhausted or <code>out</code> does not have room
+	 * for the output of the next input character.
+	 *
+	 * @param in
+	 *            input characters
+	 * @param out
+	 *            buffer receiving output characters
+	 */
+	void update(CharBuffer in, CharBuffer out);
+
+	/**
+	 * Writes any output still held back by the transform.
+	 *
+	 * @param out
+	 *            buffer with at least {@link #MAX_OUTPUT_PER_INPUT} characters
+	 *            remaining
+	 */
+	void finish(CharBuffer out);
+
+	/**
+	 * Transforms ASCII bytes from <code>in</code> into <code>out</code>; see
+	 * {@link #update(CharBuffer, CharBuffer)}.
+	 */
+	void update(ByteBuffer in, ByteBuffer out);
+
+	/**
+	 * Writes any output still held back by the transform as ASCII bytes; see
+	 * {@link #finish(CharBuffer)}.
+	 */
+	void finish(ByteBuffer out);
+}
@@ -0,0 +1,55 @@
+package cryptotools;
+
+/**
+ * Greatest common divisor g of a and b together with Bezout coefficients x
+ * and y such that a * x + b * y = g.
+ */
+public class ExtendedGcd {
+	final long gcd, x, y;
+
+	public ExtendedGcd(final long gcd, final long x, final long y) {
+		this.gcd = gcd;
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * @throws ArithmeticException
+	 *             if the gcd does not fit in an int
+	 */
+	public int getGcd() {
+		return Math.toIntExact(gcd);
+	}
+
+	/**
+	 * @throws ArithmeticException
+	 *             if the coefficient does not fit in an int
+	 */
+	public int getX() {
+		return Math.toIntExact(x);
+	}
+
+	/**
+	 * @throws ArithmeticException
+	 *             if the coefficient does not fit in an int
+	 */
+	public int getY() {
+		return Math.toIntExact(y);
+	}
+
+	public long getLongGcd() {
+		return gcd;
+	}
+
+	public long getLongX() {
+		return x;
+	}
+
+	public long getLongY() {
+		return y;
+	}
+
+	public String toString() {
+		return "(" + gcd + "," + x + "," + y + ")";
+	}
+}
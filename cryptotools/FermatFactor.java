@@ -1,22 +1,38 @@
 package cryptotools;
 
 public class FermatFactor {
-	final int x, y;
+	final long x, y;
 
-	public FermatFactor(final int x, final int y) {
+	public FermatFactor(final long x, final long y) {
 		this.x = x;
 		this.y = y;
 	}
 
+	/**
+	 * @throws ArithmeticException
+	 *             if the factor does not fit in an int
+	 */
 	public int getX() {
-		return x;
+		return Math.toIntExact(x);
 	}
 
+	/**
+	 * @throws ArithmeticException
+	 *             if the factor does not fit in an int
+	 */
 	public int getY() {
+		return Math.toIntExact(y);
+	}
+
+	public long getLongX() {
+		return x;
+	}
+
+	public long getLongY() {
 		return y;
 	}
 
 	public String toString() {
 		return "(" + x + "," + y + ")";
 	}
-}
\ No newline at end of file
+}
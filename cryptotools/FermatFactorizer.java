@@ -1,38 +1,397 @@
 package cryptotools;
 
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fermat factorization: an odd n = a<sup>2</sup> - b<sup>2</sup> = (a - b)(a +
+ * b), so the search walks a upward from ceil(sqrt(n)) until a<sup>2</sup> - n
+ * is a perfect square. The first hit gives the two factors closest to
+ * sqrt(n), which makes the method fast exactly when those factors are close
+ * together.
+ * <p>
+ * Most candidates are rejected without a square root: a<sup>2</sup> - n has to
+ * be a quadratic residue mod 64, 63, 65 and 11, and only about 1 in 120
+ * candidates passes all four. The residues of a are stepped along with a, so
+ * the filters cost a few table loads per candidate.
+ */
 public class FermatFactorizer {
 
+	private static final int[] FILTER_MODULI = { 64, 63, 65, 11 };
+
+	// isSquareMod[i][r] is true if r is a square mod FILTER_MODULI[i]
+	private static final boolean[][] IS_SQUARE_MOD = new boolean[FILTER_MODULI.length][];
+
+	static {
+		for (int i = 0; i < FILTER_MODULI.length; i++) {
+			final int m = FILTER_MODULI[i];
+			IS_SQUARE_MOD[i] = new boolean[m];
+			for (int r = 0; r < m; r++) {
+				IS_SQUARE_MOD[i][(r * r) % m] = true;
+			}
+		}
+	}
+
+	/**
+	 * Largest a whose square fits in a long.
+	 */
+	private static final long LONG_SQRT_LIMIT = 3037000499L;
+
+	/**
+	 * Certainty passed to {@link BigInteger#isProbablePrime(int)}.
+	 */
+	private static final int PRIME_CERTAINTY = 100;
+
+	/**
+	 * Candidates handed to a parallel worker at a time.
+	 */
+	private static final long BLOCK_SIZE = 1 << 16;
+
+	/**
+	 * One search for a<sup>2</sup> - n = b<sup>2</sup>, with a = start +
+	 * offset.
+	 */
+	private abstract static class Search {
+		// passes[i][a mod FILTER_MODULI[i]]: a^2 - n is a square mod it
+		private final boolean[][] passes = new boolean[FILTER_MODULI.length][];
+
+		// start mod FILTER_MODULI[i]
+		private final int[] startResidues = new int[FILTER_MODULI.length];
+
+		Search(final int[] nResidues, final int[] startResidues) {
+			for (int i = 0; i < FILTER_MODULI.length; i++) {
+				final int m = FILTER_MODULI[i];
+				passes[i] = new boolean[m];
+				for (int r = 0; r < m; r++) {
+					passes[i][r] = IS_SQUARE_MOD[i][Math.floorMod(r * r
+							- nResidues[i], m)];
+				}
+			}
+			System.arraycopy(startResidues, 0, this.startResidues, 0,
+					startResidues.length);
+		}
+
+		/**
+		 * Returns true if a<sup>2</sup> - n is a perfect square for a = start
+		 * + offset.
+		 */
+		abstract boolean isSquareDifference(long offset);
+
+		/**
+		 * Returns the first offset in [from, to) that gives a perfect square,
+		 * or -1.
+		 */
+		long search(final long from, final long to) {
+			final boolean[] pass64 = passes[0], pass63 = passes[1], pass65 = passes[2], pass11 = passes[3];
+			int r64 = (int) ((startResidues[0] + from % 64) % 64);
+			int r63 = (int) ((startResidues[1] + from % 63) % 63);
+			int r65 = (int) ((startResidues[2] + from % 65) % 65);
+			int r11 = (int) ((startResidues[3] + from % 11) % 11);
+
+			for (long offset = from; offset < to; offset++) {
+				if (pass64[r64] && pass63[r63] && pass65[r65] && pass11[r11]
+						&& isSquareDifference(offset)) {
+					return offset;
+				}
+				r64 = (r64 + 1) & 63;
+				if (++r63 == 63) {
+					r63 = 0;
+				}
+				if (++r65 == 65) {
+					r65 = 0;
+				}
+				if (++r11 == 11) {
+					r11 = 0;
+				}
+			}
+			return -1;
+		}
+	}
+
+	private static class LongSearch extends Search {
+		private final long n, start;
+
+		LongSearch(final long n, final long start) {
+			super(residues(n), residues(start));
+			this.n = n;
+			this.start = start;
+		}
+
+		boolean isSquareDifference(final long offset) {
+			final long a = start + offset;
+			final long b2 = a * a - n;
+			final long b = sqrtFloor(b2);
+			return b * b == b2;
+		}
+	}
+
+	private static class BigSearch extends Search {
+		private final BigInteger n, start;
+
+		BigSearch(final BigInteger n, final BigInteger start) {
+			super(residues(n), residues(start));
+			this.n = n;
+			this.start = start;
+		}
+
+		boolean isSquareDifference(final long offset) {
+			final BigInteger a = start.add(BigInteger.valueOf(offset));
+			final BigInteger b2 = a.multiply(a).subtract(n);
+			return b2.sqrtAndRemainder()[1].signum() == 0;
+		}
+	}
+
+	private static int[] residues(final long n) {
+		final int[] residues = new int[FILTER_MODULI.length];
+		for (int i = 0; i < FILTER_MODULI.length; i++) {
+			residues[i] = (int) (n % FILTER_MODULI[i]);
+		}
+		return residues;
+	}
+
+	private static int[] residues(final BigInteger n) {
+		final int[] residues = new int[FILTER_MODULI.length];
+		for (int i = 0; i < FILTER_MODULI.length; i++) {
+			residues[i] = n.mod(BigInteger.valueOf(FILTER_MODULI[i]))
+					.intValue();
+		}
+		return residues;
+	}
+
+	/**
+	 * Returns floor(sqrt(n)) for n in [0, Long.MAX_VALUE].
+	 */
+	static long sqrtFloor(final long n) {
+		long s = (long) Math.sqrt((double) n);
+		// the double estimate can be off by one either way
+		while (s > LONG_SQRT_LIMIT || s * s > n) {
+			s--;
+		}
+		while (s < LONG_SQRT_LIMIT && (s + 1) * (s + 1) <= n) {
+			s++;
+		}
+		return s;
+	}
+
+	/**
+	 * Searches offsets [0, count) and returns the first hit, or -1. In
+	 * parallel, workers claim blocks in increasing order and stop claiming
+	 * once a block starts past the best hit so far, so the result is the same
+	 * as the sequential one.
+	 */
+	private static long search(final Search search, final long count,
+			final boolean parallel) {
+		if (!parallel || count <= BLOCK_SIZE) {
+			return search.search(0, count);
+		}
+
+		final AtomicLong nextBlock = new AtomicLong();
+		final AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final List<ForkJoinTask<?>> workers = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < pool.getParallelism(); i++) {
+			workers.add(pool.submit(new Runnable() {
+				public void run() {
+					while (true) {
+						final long from = nextBlock.getAndIncrement()
+								* BLOCK_SIZE;
+						if (from >= count || from >= best.get()) {
+							return;
+						}
+						final long hit = search.search(from,
+								Math.min(from + BLOCK_SIZE, count));
+						if (hit >= 0) {
+							long current;
+							while (hit < (current = best.get())
+									&& !best.compareAndSet(current, hit)) {
+								// another worker moved best; try again
+							}
+							return;
+						}
+					}
+				}
+			}));
+		}
+		for (ForkJoinTask<?> worker : workers) {
+			worker.join();
+		}
+
+		final long hit = best.get();
+		return hit == Long.MAX_VALUE ? -1 : hit;
+	}
+
+	/**
+	 * Tries the first <code>steps</code> values of a from ceil(sqrt(n)) up,
+	 * for odd composite n, and returns the factor a - b of the first hit, or
+	 * 0 if there is none. This settles near-square splits cheaply before a
+	 * general method takes over.
+	 */
+	static long searchFactor(final long n, final long steps) {
+		long start = sqrtFloor(n);
+		if (start * start < n) {
+			start++;
+		}
+		if (start > LONG_SQRT_LIMIT - steps) {
+			// a^2 would overflow a long
+			return searchFactor(BigInteger.valueOf(n), steps).longValue();
+		}
+		final long offset = new LongSearch(n, start).search(0, steps);
+		if (offset < 0) {
+			return 0;
+		}
+		final long a = start + offset;
+		return a - sqrtFloor(a * a - n);
+	}
+
+	/**
+	 * BigInteger version of {@link #searchFactor(long, long)}; returns zero
+	 * if there is no hit.
+	 */
+	static BigInteger searchFactor(final BigInteger n, final long steps) {
+		final BigInteger[] root = n.sqrtAndRemainder();
+		final BigInteger start = root[1].signum() == 0 ? root[0] : root[0]
+				.add(BigInteger.ONE);
+		final long offset = new BigSearch(n, start).search(0, steps);
+		if (offset < 0) {
+			return BigInteger.ZERO;
+		}
+		final BigInteger a = start.add(BigInteger.valueOf(offset));
+		return a.subtract(a.multiply(a).subtract(n).sqrt());
+	}
+
 	public static FermatFactor factor(final int n) {
-		int bound = (int) Math.sqrt(n) + 1;
-		int x = 1;
-		int r, y = 0, z;
+		return factor((long) n);
+	}
+
+	/**
+	 * Finds the factorization n = x * y with x <= y closest to sqrt(n). Even n
+	 * give (2, n / 2) and primes give (1, n); primes are recognized up front
+	 * by {@link PrimalityTester}, so they do not walk the whole search range.
+	 *
+	 * @param n
+	 *            positive number to factor
+	 */
+	public static FermatFactor factor(final long n) {
+		return factor(n, false);
+	}
+
+	/**
+	 * Like {@link #factor(long)}, splitting the search over the common
+	 * fork/join pool.
+	 */
+	public static FermatFactor factorParallel(final long n) {
+		return factor(n, true);
+	}
+
+	private static FermatFactor factor(final long n, final boolean parallel) {
+		if (n < 1) {
+			throw new IllegalArgumentException("n must be positive");
+		}
 
 		// check for even n
 		if (n % 2 == 0) {
 			// n is even
 			return new FermatFactor(2, n / 2);
+		}
+		if (PrimalityTester.isPrime(n)) {
+			return new FermatFactor(1, n);
+		}
 
-		} else {
-			// n is odd
+		// n is odd: a runs from ceil(sqrt(n)) to (n + 1) / 2, which gives
+		// the trivial factorization 1 * n
+		long start = sqrtFloor(n);
+		if (start * start < n) {
+			start++;
+		}
+		final long end = n / 2 + 1;
 
-			// this while test can't be right. work it out
-			while (y - x < bound) {
+		final long longEnd = Math.min(end, LONG_SQRT_LIMIT);
+		if (start <= longEnd) {
+			final long offset = search(new LongSearch(n, start), longEnd
+					- start + 1, parallel);
+			if (offset >= 0) {
+				final long a = start + offset;
+				final long b = sqrtFloor(a * a - n);
+				return new FermatFactor(a - b, a + b);
+			}
+		}
 
-				z = n + x * x;
-				y = (int) Math.sqrt(z);
-				r = z - y * y;
+		// the rest of the range needs a^2 wider than a long
+		final BigInteger[] factors = factor(BigInteger.valueOf(n),
+				BigInteger.valueOf(Math.max(start, LONG_SQRT_LIMIT + 1)),
+				parallel);
+		return new FermatFactor(factors[0].longValueExact(),
+				factors[1].longValueExact());
+	}
 
-				if (r == 0) {
-					// fermat factorization found for n
-					return new FermatFactor(y - x, y + x);
-				}
+	/**
+	 * Finds the factorization n = x * y with x <= y closest to sqrt(n),
+	 * returned as { x, y }. Even n give (2, n / 2) and primes give (1, n).
+	 * Beyond 64 bits primes are recognized up front by
+	 * {@link BigInteger#isProbablePrime(int)}, which errs with probability
+	 * below 2<sup>-100</sup>.
+	 *
+	 * @param n
+	 *            positive number to factor
+	 */
+	public static BigInteger[] factor(final BigInteger n) {
+		return factor(n, false);
+	}
 
-				x++;
-			}
+	/**
+	 * Like {@link #factor(BigInteger)}, splitting the search over the common
+	 * fork/join pool.
+	 */
+	public static BigInteger[] factorParallel(final BigInteger n) {
+		return factor(n, true);
+	}
 
-			// n is prime
-			return new FermatFactor(1, n);
+	private static BigInteger[] factor(final BigInteger n,
+			final boolean parallel) {
+		if (n.signum() <= 0) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		if (!n.testBit(0)) {
+			return new BigInteger[] { BigInteger.TWO, n.shiftRight(1) };
 		}
+		if (n.bitLength() < 64 ? PrimalityTester.isPrime(n.longValue()) : n
+				.isProbablePrime(PRIME_CERTAINTY)) {
+			return new BigInteger[] { BigInteger.ONE, n };
+		}
+
+		final BigInteger[] root = n.sqrtAndRemainder();
+		final BigInteger start = root[1].signum() == 0 ? root[0] : root[0]
+				.add(BigInteger.ONE);
+		return factor(n, start, parallel);
+	}
+
+	/**
+	 * Searches odd n from a = start up to (n + 1) / 2.
+	 */
+	private static BigInteger[] factor(final BigInteger n,
+			final BigInteger start, final boolean parallel) {
+		final BigInteger end = n.shiftRight(1).add(BigInteger.ONE);
+
+		BigInteger from = start;
+		while (from.compareTo(end) <= 0) {
+			final BigInteger remaining = end.subtract(from).add(BigInteger.ONE);
+			final long count = remaining.bitLength() < 63 ? remaining
+					.longValue() : Long.MAX_VALUE;
+			final long offset = search(new BigSearch(n, from), count, parallel);
+			if (offset >= 0) {
+				final BigInteger a = from.add(BigInteger.valueOf(offset));
+				final BigInteger b = a.multiply(a).subtract(n).sqrt();
+				return new BigInteger[] { a.subtract(b), a.add(b) };
+			}
+			from = from.add(BigInteger.valueOf(count));
+		}
+
+		// unreachable: a = (n + 1) / 2 always gives 1 * n
+		throw new IllegalStateException("No factorization found for " + n);
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,165 @@
+package cryptotools;
+
+import java.math.BigInteger;
+
+/**
+ * Exponentiation of one fixed base under one fixed modulus, such as a
+ * generator g mod p. The constructor precomputes, for every k-bit window of
+ * the exponent, the powers g<sup>d 2<sup>ki</sup></sup> for each digit d, so
+ * that g<sup>e</sup> is just the product of one table entry per window:
+ * about bits/k multiplications and no squarings.
+ * <p>
+ * The table holds ceil(bits/k) * (2<sup>k</sup> - 1) residues, so a wider
+ * window trades memory for speed. Windows are at most
+ * {@link #MAX_WINDOW_BITS} wide and tables at most {@link #MAX_TABLE_SIZE}
+ * residues: that allows k = 8 for 2048-bit exponents, a table of about 16
+ * MB built with 65280 products. With an odd modulus the table is kept in
+ * Montgomery form. Instances are immutable and thread-safe.
+ */
+public class FixedBaseExponentiator {
+
+	public static final int DEFAULT_WINDOW_BITS = 4;
+
+	public static final int MAX_WINDOW_BITS = 8;
+
+	/**
+	 * Largest number of residues a table may hold.
+	 */
+	public static final int MAX_TABLE_SIZE = 1 << 16;
+
+	private final BigInteger base;
+
+	private final BigInteger modulus;
+
+	private final int maxExponentBits;
+
+	private final int windowBits;
+
+	// null unless the modulus is odd and greater than 1
+	private final BigMontgomeryMultiplier montgomery;
+
+	// table[i][d - 1] = base^(d * 2^(windowBits * i))
+	private final BigInteger[][] table;
+
+	/**
+	 * Builds a table for exponents up to the bit length of the modulus, with
+	 * {@link #DEFAULT_WINDOW_BITS}-bit windows.
+	 */
+	public FixedBaseExponentiator(final BigInteger base,
+			final BigInteger modulus) {
+		this(base, modulus, modulus.bitLength(), DEFAULT_WINDOW_BITS);
+	}
+
+	/**
+	 * @param base
+	 *            fixed base; it is reduced mod modulus first
+	 * @param modulus
+	 *            positive modulus
+	 * @param maxExponentBits
+	 *            bit length of the largest exponent the table covers
+	 * @param windowBits
+	 *            exponent bits per table row, within [1,
+	 *            {@link #MAX_WINDOW_BITS}]
+	 * @throws IllegalArgumentException
+	 *             if the table would hold more than {@link #MAX_TABLE_SIZE}
+	 *             residues
+	 */
+	public FixedBaseExponentiator(final BigInteger base,
+			final BigInteger modulus, final int maxExponentBits,
+			final int windowBits) {
+		if (modulus.signum() <= 0) {
+			throw new IllegalArgumentException("Modulus must be positive");
+		}
+		if (maxExponentBits < 1) {
+			throw new IllegalArgumentException(
+					"Maximum exponent bits must be positive");
+		}
+		if (windowBits < 1 || windowBits > MAX_WINDOW_BITS) {
+			throw new IllegalArgumentException("Window bits must be within [1,"
+					+ MAX_WINDOW_BITS + "]");
+		}
+		final int windows = (maxExponentBits + windowBits - 1) / windowBits;
+		final int digits = (1 << windowBits) - 1;
+		if ((long) windows * digits > MAX_TABLE_SIZE) {
+			throw new IllegalArgumentException("Table of " + windows + " * "
+					+ digits + " residues exceeds " + MAX_TABLE_SIZE);
+		}
+
+		this.base = base.mod(modulus);
+		this.modulus = modulus;
+		this.maxExponentBits = maxExponentBits;
+		this.windowBits = windowBits;
+		this.montgomery = modulus.testBit(0)
+				&& modulus.compareTo(BigInteger.ONE) > 0 ? new BigMontgomeryMultiplier(
+				modulus) : null;
+
+		table = new BigInteger[windows][digits];
+
+		BigInteger power = montgomery != null ? montgomery
+				.toMontgomery(this.base) : this.base;
+		for (int i = 0; i < windows; i++) {
+			final BigInteger[] row = table[i];
+			row[0] = power;
+			for (int d = 1; d < digits; d++) {
+				row[d] = multiply(row[d - 1], power);
+			}
+			// power^(2^k) starts the next row
+			power = multiply(row[digits - 1], power);
+		}
+	}
+
+	private BigInteger multiply(final BigInteger a, final BigInteger b) {
+		if (montgomery != null) {
+			return montgomery.multiply(a, b);
+		}
+		return a.multiply(b).mod(modulus);
+	}
+
+	public BigInteger getBase() {
+		return base;
+	}
+
+	public BigInteger getModulus() {
+		return modulus;
+	}
+
+	public int getWindowBits() {
+		return windowBits;
+	}
+
+	/**
+	 * Computes base<sup>exponent</sup> mod modulus. Exponents wider than the
+	 * table fall back to {@link BigInteger#modPow}.
+	 *
+	 * @param exponent
+	 *            non-negative exponent
+	 */
+	public BigInteger modExp(final BigInteger exponent) {
+		if (exponent.signum() < 0) {
+			throw new IllegalArgumentException("Exponent must be non-negative");
+		}
+		if (exponent.bitLength() > maxExponentBits) {
+			return base.modPow(exponent, modulus);
+		}
+
+		BigInteger result = null;
+		final int windows = (exponent.bitLength() + windowBits - 1)
+				/ windowBits;
+		for (int i = 0; i < windows; i++) {
+			int digit = 0;
+			for (int bit = windowBits - 1; bit >= 0; bit--) {
+				digit = (digit << 1)
+						| (exponent.testBit(i * windowBits + bit) ? 1 : 0);
+			}
+			if (digit != 0) {
+				final BigInteger entry = table[i][digit - 1];
+				result = result == null ? entry : multiply(result, entry);
+			}
+		}
+
+		if (result == null) {
+			return BigInteger.ONE.mod(modulus);
+		}
+		return montgomery != null ? montgomery.fromMontgomery(result) : result;
+	}
+}
@@ -0,0 +1,533 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Complete prime factorization of longs and BigIntegers by a pipeline of
+ * methods, each suited to what the one before leaves over:
+ * <ol>
+ * <li>trial division by the primes below {@link #TRIAL_DIVISION_BOUND}, which
+ * removes the small factors most numbers have;</li>
+ * <li>a short Fermat search from sqrt(n), which splits a cofactor at once
+ * when its two factors are close together, the worst case for rho;</li>
+ * <li>Pollard's rho with Brent's cycle detection, which finds a factor p in
+ * about sqrt(p) steps. The differences are multiplied together in Montgomery
+ * form and handed to {@link GcdFinder} once per {@link #GCD_BATCH} steps, so
+ * the gcds cost little next to the products.</li>
+ * </ol>
+ * Each part is checked by Miller-Rabin before it is split, and the search
+ * stops once every part is prime. Parts that fit in a long go to
+ * {@link PrimalityTester}, which is deterministic for every long; wider
+ * parts use {@link BigInteger#isProbablePrime(int)}, which errs with
+ * probability below 2<sup>-100</sup>.
+ * <p>
+ * A call can be given a time budget. Parts that are still composite when it
+ * runs out are returned unfactored, and
+ * {@link PrimeFactorization#isComplete()} is false. Without a budget a call
+ * runs until it is done, which for products of two large primes may be
+ * never. Independent inputs can be factored in parallel on the common
+ * fork/join pool.
+ */
+public class IntegerFactorizer {
+
+	/**
+	 * Trial division covers the primes below this bound.
+	 */
+	public static final int TRIAL_DIVISION_BOUND = 1 << 16;
+
+	/**
+	 * Rho steps whose differences share one gcd.
+	 */
+	private static final int GCD_BATCH = 128;
+
+	/**
+	 * Candidates tried by the Fermat search.
+	 */
+	private static final long FERMAT_STEPS = 1 << 12;
+
+	/**
+	 * Certainty passed to {@link BigInteger#isProbablePrime(int)}.
+	 */
+	private static final int PRIME_CERTAINTY = 100;
+
+	// odd primes below TRIAL_DIVISION_BOUND
+	private static final int[] SMALL_PRIMES;
+
+	// products of runs of SMALL_PRIMES that fit in a long; run i ends
+	// before SMALL_PRIMES[PRODUCT_ENDS[i]]
+	private static final long[] PRIME_PRODUCTS;
+
+	private static final int[] PRODUCT_ENDS;
+
+	static {
+		final List<Long> primes = new ArrayList<Long>();
+		final List<Long> products = new ArrayList<Long>();
+		final List<Integer> ends = new ArrayList<Integer>();
+		long product = 1;
+		final PrimitiveIterator.OfLong it = PrimeSieve.iterator(3,
+				TRIAL_DIVISION_BOUND);
+		while (it.hasNext()) {
+			final long p = it.nextLong();
+			if (product > Long.MAX_VALUE / p) {
+				products.add(product);
+				ends.add(primes.size());
+				product = 1;
+			}
+			product *= p;
+			primes.add(p);
+		}
+		products.add(product);
+		ends.add(primes.size());
+
+		SMALL_PRIMES = new int[primes.size()];
+		for (int i = 0; i < SMALL_PRIMES.length; i++) {
+			SMALL_PRIMES[i] = primes.get(i).intValue();
+		}
+		PRIME_PRODUCTS = new long[products.size()];
+		PRODUCT_ENDS = new int[ends.size()];
+		for (int i = 0; i < PRIME_PRODUCTS.length; i++) {
+			PRIME_PRODUCTS[i] = products.get(i);
+			PRODUCT_ENDS[i] = ends.get(i);
+		}
+	}
+
+	/**
+	 * The time budget of one call.
+	 */
+	private static class Budget {
+		// no limit
+		static final Budget NONE = new Budget(Long.MAX_VALUE);
+
+		private final long start = System.nanoTime();
+
+		private final long nanos;
+
+		Budget(final long nanos) {
+			this.nanos = nanos;
+		}
+
+		boolean isExpired() {
+			return nanos != Long.MAX_VALUE
+					&& System.nanoTime() - start >= nanos;
+		}
+	}
+
+	/**
+	 * Factors of one number, collected as they are found.
+	 */
+	private static class Factors {
+		final List<BigInteger> primes = new ArrayList<BigInteger>();
+
+		final List<BigInteger> unfactored = new ArrayList<BigInteger>();
+
+		PrimeFactorization toFactorization(final BigInteger n) {
+			return new PrimeFactorization(n,
+					primes.toArray(new BigInteger[primes.size()]),
+					unfactored.toArray(new BigInteger[unfactored.size()]));
+		}
+	}
+
+	private static Budget budget(final long budget, final TimeUnit unit) {
+		if (budget < 0) {
+			throw new IllegalArgumentException("Budget must be non-negative");
+		}
+		return new Budget(Math.min(unit.toNanos(budget), Long.MAX_VALUE - 1));
+	}
+
+	/**
+	 * Factors <code>n</code> completely.
+	 *
+	 * @param n
+	 *            positive number to factor
+	 */
+	public static PrimeFactorization factor(final long n) {
+		return factor(n, Budget.NONE);
+	}
+
+	/**
+	 * Factors <code>n</code>, leaving parts unfactored once
+	 * <code>budget</code> has passed.
+	 *
+	 * @param n
+	 *            positive number to factor
+	 */
+	public static PrimeFactorization factor(final long n, final long budget,
+			final TimeUnit unit) {
+		return factor(n, budget(budget, unit));
+	}
+
+	private static PrimeFactorization factor(final long n,
+			final Budget budget) {
+		if (n < 1) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		final Factors factors = new Factors();
+		factorLong(n, budget, factors);
+		return factors.toFactorization(BigInteger.valueOf(n));
+	}
+
+	/**
+	 * Factors <code>n</code> completely; see the class comment for how long
+	 * that can take.
+	 *
+	 * @param n
+	 *            positive number to factor
+	 */
+	public static PrimeFactorization factor(final BigInteger n) {
+		return factor(n, Budget.NONE);
+	}
+
+	/**
+	 * Factors <code>n</code>, leaving parts unfactored once
+	 * <code>budget</code> has passed.
+	 *
+	 * @param n
+	 *            positive number to factor
+	 */
+	public static PrimeFactorization factor(final BigInteger n,
+			final long budget, final TimeUnit unit) {
+		return factor(n, budget(budget, unit));
+	}
+
+	private static PrimeFactorization factor(final BigInteger n,
+			final Budget budget) {
+		if (n.signum() <= 0) {
+			throw new IllegalArgumentException("n must be positive");
+		}
+		final Factors factors = new Factors();
+		if (n.bitLength() < 64) {
+			factorLong(n.longValue(), budget, factors);
+		} else {
+			factorBig(n, budget, factors);
+		}
+		return factors.toFactorization(n);
+	}
+
+	/**
+	 * Factors every number in parallel, each with its own
+	 * <code>budget</code>, and returns the results in the same order.
+	 *
+	 * @param numbers
+	 *            positive numbers to factor
+	 */
+	public static PrimeFactorization[] factorAll(final BigInteger[] numbers,
+			final long budget, final TimeUnit unit) {
+		for (BigInteger n : numbers) {
+			if (n.signum() <= 0) {
+				throw new IllegalArgumentException("n must be positive");
+			}
+		}
+		// checked up front so the workers cannot fail on it
+		budget(budget, unit);
+
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final List<Future<PrimeFactorization>> results = new ArrayList<Future<PrimeFactorization>>();
+		for (final BigInteger n : numbers) {
+			results.add(pool.submit(new Callable<PrimeFactorization>() {
+				public PrimeFactorization call() {
+					return factor(n, budget, unit);
+				}
+			}));
+		}
+
+		final PrimeFactorization[] factorizations = new PrimeFactorization[numbers.length];
+		for (int i = 0; i < numbers.length; i++) {
+			try {
+				factorizations[i] = results.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException(e.getCause());
+			}
+		}
+		return factorizations;
+	}
+
+	/**
+	 * Factors every number completely in parallel and returns the results in
+	 * the same order.
+	 *
+	 * @param numbers
+	 *            positive numbers to factor
+	 */
+	public static PrimeFactorization[] factorAll(final long[] numbers) {
+		final BigInteger[] bigNumbers = new BigInteger[numbers.length];
+		for (int i = 0; i < numbers.length; i++) {
+			bigNumbers[i] = BigInteger.valueOf(numbers[i]);
+		}
+		return factorAll(bigNumbers, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	private static void factorLong(long n, final Budget budget,
+			final Factors factors) {
+		final int twos = Long.numberOfTrailingZeros(n);
+		for (int i = 0; i < twos; i++) {
+			factors.primes.add(BigInteger.TWO);
+		}
+		n >>>= twos;
+
+		for (final int p : SMALL_PRIMES) {
+			if ((long) p * p > n) {
+				break;
+			}
+			while (n % p == 0) {
+				factors.primes.add(BigInteger.valueOf(p));
+				n /= p;
+			}
+		}
+		splitLong(n, budget, factors);
+	}
+
+	/**
+	 * Splits n, which has no prime factor below TRIAL_DIVISION_BOUND, into
+	 * primes.
+	 */
+	private static void splitLong(final long n, final Budget budget,
+			final Factors factors) {
+		final Deque<Long> parts = new ArrayDeque<Long>();
+		parts.push(n);
+		while (!parts.isEmpty()) {
+			final long part = parts.pop();
+			if (part == 1) {
+				continue;
+			}
+			// below the square of the bound, trial division leaves only primes
+			if (part < (long) TRIAL_DIVISION_BOUND * TRIAL_DIVISION_BOUND
+					|| PrimalityTester.isPrime(part)) {
+				factors.primes.add(BigInteger.valueOf(part));
+				continue;
+			}
+			final long d = findFactor(part, budget);
+			if (d == 0) {
+				factors.unfactored.add(BigInteger.valueOf(part));
+			} else {
+				parts.push(d);
+				parts.push(part / d);
+			}
+		}
+	}
+
+	/**
+	 * Returns a proper factor of odd composite n, or 0 if the budget runs out
+	 * first.
+	 */
+	private static long findFactor(final long n, final Budget budget) {
+		final long d = FermatFactorizer.searchFactor(n, FERMAT_STEPS);
+		if (d > 1) {
+			return d;
+		}
+		final MontgomeryMultiplier montgomery = new MontgomeryMultiplier(n);
+		for (long c = 1; !budget.isExpired(); c++) {
+			final long factor = brent(montgomery, c, budget);
+			if (factor > 1) {
+				return factor;
+			}
+			// the cycle closed without a split; try another polynomial
+		}
+		return 0;
+	}
+
+	/**
+	 * Pollard's rho with Brent's cycle detection on y -> y<sup>2</sup> + c,
+	 * in Montgomery form. Returns a proper factor, or 0 if the cycle closed
+	 * mod n or the budget ran out.
+	 */
+	private static long brent(final MontgomeryMultiplier montgomery,
+			final long c, final Budget budget) {
+		final long n = montgomery.getModulus();
+		long y = montgomery.one();
+		long x = y, ys = y;
+		long q = montgomery.one();
+		long g = 1;
+		for (long r = 1; g == 1; r <<= 1) {
+			x = y;
+			for (long k = 0; k < r; k += GCD_BATCH) {
+				if (budget.isExpired()) {
+					return 0;
+				}
+				final long steps = Math.min(GCD_BATCH, r - k);
+				for (long i = 0; i < steps; i++) {
+					y = step(montgomery, y, c, n);
+				}
+			}
+			for (long k = 0; k < r && g == 1; k += GCD_BATCH) {
+				if (budget.isExpired()) {
+					return 0;
+				}
+				ys = y;
+				final long steps = Math.min(GCD_BATCH, r - k);
+				for (long i = 0; i < steps; i++) {
+					y = step(montgomery, y, c, n);
+					// the difference of Montgomery forms keeps every factor
+					q = montgomery.multiply(q, Math.abs(x - y));
+				}
+				g = GcdFinder.computeGcd(q, n);
+			}
+		}
+		if (g == n) {
+			// the batch overshot the factor; redo it one gcd per step
+			do {
+				ys = step(montgomery, ys, c, n);
+				g = GcdFinder.computeGcd(Math.abs(x - ys), n);
+			} while (g == 1);
+		}
+		return g == n ? 0 : g;
+	}
+
+	private static long step(final MontgomeryMultiplier montgomery,
+			final long y, final long c, final long n) {
+		final long t = montgomery.multiply(y, y) + c;
+		// t < n + c fits in an unsigned long
+		return Long.compareUnsigned(t, n) >= 0 ? t - n : t;
+	}
+
+	private static void factorBig(BigInteger n, final Budget budget,
+			final Factors factors) {
+		final int twos = n.getLowestSetBit();
+		for (int i = 0; i < twos; i++) {
+			factors.primes.add(BigInteger.TWO);
+		}
+		n = n.shiftRight(twos);
+
+		// one BigInteger division per run of primes instead of one per prime
+		int start = 0;
+		for (int run = 0; run < PRIME_PRODUCTS.length; run++) {
+			final BigInteger product = BigInteger.valueOf(PRIME_PRODUCTS[run]);
+			long remainder = n.mod(product).longValue();
+			for (int i = start; i < PRODUCT_ENDS[run]; i++) {
+				final int p = SMALL_PRIMES[i];
+				while (remainder % p == 0) {
+					final BigInteger prime = BigInteger.valueOf(p);
+					factors.primes.add(prime);
+					n = n.divide(prime);
+					remainder = n.mod(product).longValue();
+				}
+			}
+			start = PRODUCT_ENDS[run];
+			if (n.bitLength() < 64) {
+				factorLong(n.longValue(), budget, factors);
+				return;
+			}
+		}
+		splitBig(n, budget, factors);
+	}
+
+	/**
+	 * Splits n, which has no prime factor below TRIAL_DIVISION_BOUND, into
+	 * primes.
+	 */
+	private static void splitBig(final BigInteger n, final Budget budget,
+			final Factors factors) {
+		final Deque<BigInteger> parts = new ArrayDeque<BigInteger>();
+		parts.push(n);
+		while (!parts.isEmpty()) {
+			final BigInteger part = parts.pop();
+			if (part.bitLength() < 64) {
+				splitLong(part.longValue(), budget, factors);
+				continue;
+			}
+			if (part.isProbablePrime(PRIME_CERTAINTY)) {
+				factors.primes.add(part);
+				continue;
+			}
+			final BigInteger d = findFactor(part, budget);
+			if (d.signum() == 0) {
+				factors.unfactored.add(part);
+			} else {
+				parts.push(d);
+				parts.push(part.divide(d));
+			}
+		}
+	}
+
+	/**
+	 * Returns a proper factor of odd composite n, or zero if the budget runs
+	 * out first.
+	 */
+	private static BigInteger findFactor(final BigInteger n,
+			final Budget budget) {
+		final BigInteger d = FermatFactorizer.searchFactor(n, FERMAT_STEPS);
+		if (d.compareTo(BigInteger.ONE) > 0) {
+			return d;
+		}
+		final BigMontgomeryMultiplier montgomery = new BigMontgomeryMultiplier(
+				n);
+		for (long c = 1; !budget.isExpired(); c++) {
+			final BigInteger factor = brent(montgomery,
+					BigInteger.valueOf(c), budget);
+			if (factor.signum() != 0) {
+				return factor;
+			}
+		}
+		return BigInteger.ZERO;
+	}
+
+	/**
+	 * BigInteger version of {@link #brent(MontgomeryMultiplier, long, Budget)};
+	 * returns zero if there is no split.
+	 */
+	private static BigInteger brent(final BigMontgomeryMultiplier montgomery,
+			final BigInteger c, final Budget budget) {
+		final BigInteger n = montgomery.getModulus();
+		BigInteger y = montgomery.one();
+		BigInteger x = y, ys = y;
+		BigInteger q = montgomery.one();
+		BigInteger g = BigInteger.ONE;
+		for (long r = 1; g.equals(BigInteger.ONE); r <<= 1) {
+			x = y;
+			for (long k = 0; k < r; k += GCD_BATCH) {
+				if (budget.isExpired()) {
+					return BigInteger.ZERO;
+				}
+				final long steps = Math.min(GCD_BATCH, r - k);
+				for (long i = 0; i < steps; i++) {
+					y = step(montgomery, y, c, n);
+				}
+			}
+			for (long k = 0; k < r && g.equals(BigInteger.ONE); k += GCD_BATCH) {
+				if (budget.isExpired()) {
+					return BigInteger.ZERO;
+				}
+				ys = y;
+				final long steps = Math.min(GCD_BATCH, r - k);
+				for (long i = 0; i < steps; i++) {
+					y = step(montgomery, y, c, n);
+					q = montgomery.multiply(q, x.subtract(y).abs());
+				}
+				g = GcdFinder.computeGcd(q, n);
+			}
+		}
+		if (g.equals(n)) {
+			do {
+				ys = step(montgomery, ys, c, n);
+				g = GcdFinder.computeGcd(x.subtract(ys).abs(), n);
+			} while (g.equals(BigInteger.ONE));
+		}
+		return g.equals(n) ? BigInteger.ZERO : g;
+	}
+
+	private static BigInteger step(final BigMontgomeryMultiplier montgomery,
+			final BigInteger y, final BigInteger c, final BigInteger n) {
+		final BigInteger t = montgomery.multiply(y, y).add(c);
+		return t.compareTo(n) >= 0 ? t.subtract(n) : t;
+	}
+
+	public static void main(String[] args) {
+		for (String arg : args) {
+			final PrimeFactorization factorization = factor(new BigInteger(
+					arg), 10, TimeUnit.SECONDS);
+			System.out.println(arg + " = " + factorization);
+		}
+	}
+}
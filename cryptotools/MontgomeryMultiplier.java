@@ -0,0 +1,145 @@
+package cryptotools;
+
+/**
+ * Montgomery multiplication modulo an odd 64-bit modulus <em>m</em>, with
+ * <em>R</em> = 2<sup>64</sup>. Numbers in Montgomery form are stored as
+ * <em>aR</em> mod <em>m</em>; multiplying two of them needs two 64x64-bit
+ * products and no division.
+ * <p>
+ * R mod m, R<sup>2</sup> mod m and m' are derived once in the constructor, so
+ * one instance should be reused for every operation under the same modulus.
+ * Instances are immutable and thread-safe.
+ */
+public class MontgomeryMultiplier {
+
+	private final long modulus;
+
+	// -modulus^-1 mod 2^64
+	private final long negInverse;
+
+	// R mod modulus, which is 1 in Montgomery form
+	private final long one;
+
+	// R^2 mod modulus
+	private final long rSquared;
+
+	/**
+	 * @param modulus
+	 *            odd modulus greater than 1
+	 */
+	public MontgomeryMultiplier(final long modulus) {
+		if (modulus <= 1 || (modulus & 1) == 0) {
+			throw new IllegalArgumentException(
+					"Modulus must be odd and greater than 1");
+		}
+		this.modulus = modulus;
+		this.negInverse = -inverse(modulus);
+
+		// (2^64 - 1) mod m, plus one
+		long r = Long.remainderUnsigned(-1L, modulus) + 1;
+		if (r == modulus) {
+			r = 0;
+		}
+		this.one = r;
+
+		// double R mod m another 64 times to reach R^2 mod m
+		for (int i = 0; i < 64; i++) {
+			r <<= 1;
+			if (Long.compareUnsigned(r, modulus) >= 0) {
+				r -= modulus;
+			}
+		}
+		this.rSquared = r;
+	}
+
+	/**
+	 * Computes a<sup>-1</sup> mod 2<sup>64</sup> for odd a by Newton
+	 * iteration; each step doubles the number of correct low bits.
+	 */
+	static long inverse(final long a) {
+		// a * a == 1 mod 8, so a is its own inverse to 3 bits
+		long x = a;
+		for (int i = 0; i < 5; i++) {
+			x *= 2 - a * x;
+		}
+		return x;
+	}
+
+	public long getModulus() {
+		return modulus;
+	}
+
+	/**
+	 * Converts a residue in [0, m) to Montgomery form.
+	 */
+	public long toMontgomery(final long a) {
+		return multiply(a, rSquared);
+	}
+
+	/**
+	 * Converts a number in Montgomery form back to a residue in [0, m).
+	 */
+	public long fromMontgomery(final long a) {
+		return multiply(a, 1);
+	}
+
+	/**
+	 * Returns 1 in Montgomery form.
+	 */
+	public long one() {
+		return one;
+	}
+
+	/**
+	 * Montgomery product a * b * R<sup>-1</sup> mod m of two numbers in
+	 * [0, m). If both are in Montgomery form, so is the result.
+	 */
+	public long multiply(final long a, final long b) {
+		// a, b < m < 2^63, so the signed high word is the unsigned one
+		final long lo = a * b;
+		final long hi = Math.multiplyHigh(a, b);
+
+		// u * m cancels the low word of a * b
+		final long u = lo * negInverse;
+		final long uHi = Math.multiplyHigh(u, modulus) + ((u >> 63) & modulus);
+
+		// lo + low word of u * m is 0 mod 2^64 and carries unless lo is 0
+		long t = hi + uHi + (lo != 0 ? 1 : 0);
+		if (Long.compareUnsigned(t, modulus) >= 0) {
+			t -= modulus;
+		}
+		return t;
+	}
+
+	/**
+	 * Computes a * b mod m for ordinary residues in [0, m).
+	 */
+	public long multiplyMod(final long a, final long b) {
+		return multiply(multiply(a, b), rSquared);
+	}
+
+	/**
+	 * Computes base<sup>exponent</sup> mod m by left-to-right square and
+	 * multiply in Montgomery form.
+	 *
+	 * @param base
+	 *            any value; it is reduced mod m first
+	 * @param exponent
+	 *            non-negative exponent
+	 */
+	public long modExp(final long base, final long exponent) {
+		if (exponent < 0) {
+			throw new IllegalArgumentException("Exponent must be non-negative");
+		}
+
+		final long b = toMontgomery(Math.floorMod(base, modulus));
+		long result = one;
+		for (int bit = 63 - Long.numberOfLeadingZeros(exponent); bit >= 0; bit--) {
+			result = multiply(result, result);
+			if (((exponent >>> bit) & 1) == 1) {
+				result = multiply(result, b);
+			}
+		}
+		return fromMontgomery(result);
+	}
+}
@@ -0,0 +1,329 @@
+package cryptotools;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * English letter n-gram model for scoring candidate plaintexts. For each order
+ * from 2 to 4 it holds the log<sub>10</sub> probability of every n-gram in a
+ * flat table of 26<sup>n</sup> floats, indexed by the letters (0 to 25) read as
+ * a base-26 number. Scoring rolls that index along the text, so it is one
+ * multiply-add and one table load per letter and allocates nothing.
+ * <p>
+ * Models are built from a corpus with {@link #build(Reader)} or the
+ * <code>main</code> tool, saved with {@link #write(Path)}, and opened with
+ * {@link #load(Path)}, which maps the file instead of reading it: startup
+ * costs no I/O and every JVM scoring with the same file shares one copy in
+ * the page cache.
+ * <p>
+ * File layout, little-endian: the magic number, the format version, then for
+ * each order from {@link #MIN_ORDER} to {@link #MAX_ORDER} the order followed
+ * by its 26<sup>n</sup> floats.
+ */
+public class NgramModel {
+
+	public static final int MIN_ORDER = 2;
+
+	public static final int MAX_ORDER = 4;
+
+	private static final int MAGIC = 0x4D52474E; // "NGRM" little-endian
+
+	private static final int VERSION = 1;
+
+	private static final int ALPHABET_SIZE = 26;
+
+	// 26^n for n = 0 to MAX_ORDER
+	private static final int[] SIZES = new int[MAX_ORDER + 1];
+
+	static {
+		SIZES[0] = 1;
+		for (int n = 1; n <= MAX_ORDER; n++) {
+			SIZES[n] = SIZES[n - 1] * ALPHABET_SIZE;
+		}
+	}
+
+	private static final int HEADER_BYTES = 8;
+
+	private final FloatBuffer[] tables = new FloatBuffer[MAX_ORDER + 1];
+
+	private NgramModel(final FloatBuffer[] tables) {
+		System.arraycopy(tables, MIN_ORDER, this.tables, MIN_ORDER, MAX_ORDER
+				- MIN_ORDER + 1);
+	}
+
+	/**
+	 * Returns the number of entries in the table of the given order,
+	 * 26<sup>order</sup>.
+	 */
+	public static int size(final int order) {
+		checkOrder(order);
+		return SIZES[order];
+	}
+
+	private static void checkOrder(final int order) {
+		if (order < MIN_ORDER || order > MAX_ORDER) {
+			throw new IllegalArgumentException("Order must be within ["
+					+ MIN_ORDER + "," + MAX_ORDER + "]");
+		}
+	}
+
+	/**
+	 * Counts every n-gram of the letters in <code>corpus</code> (case is
+	 * ignored, everything else skipped). Unseen n-grams get the log
+	 * probability of a hundredth of an occurrence.
+	 */
+	public static NgramModel build(final Reader corpus) throws IOException {
+		final long[][] counts = new long[MAX_ORDER + 1][];
+		for (int n = MIN_ORDER; n <= MAX_ORDER; n++) {
+			counts[n] = new long[SIZES[n]];
+		}
+
+		// index holds the last MAX_ORDER letters; lower orders are its tail
+		int index = 0;
+		long letters = 0;
+		final char[] buffer = new char[8192];
+		int count;
+		while ((count = corpus.read(buffer)) != -1) {
+			for (int i = 0; i < count; i++) {
+				final int letter = letter(buffer[i]);
+				if (letter < 0) {
+					continue;
+				}
+				index = roll(index, SIZES[MAX_ORDER - 1], letter);
+				letters++;
+				for (int n = MIN_ORDER; n <= MAX_ORDER && n <= letters; n++) {
+					counts[n][index % SIZES[n]]++;
+				}
+			}
+		}
+		if (letters < MAX_ORDER) {
+			throw new IllegalArgumentException("Corpus needs at least "
+					+ MAX_ORDER + " letters");
+		}
+
+		final FloatBuffer[] tables = new FloatBuffer[MAX_ORDER + 1];
+		for (int n = MIN_ORDER; n <= MAX_ORDER; n++) {
+			final long total = letters - n + 1;
+			final float floor = (float) Math.log10(0.01 / total);
+			final float[] table = new float[SIZES[n]];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = counts[n][i] == 0 ? floor : (float) Math
+						.log10((double) counts[n][i] / total);
+			}
+			tables[n] = FloatBuffer.wrap(table);
+		}
+		return new NgramModel(tables);
+	}
+
+	/**
+	 * Maps a model file written by {@link #write(Path)}.
+	 */
+	public static NgramModel load(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.READ)) {
+			// the mapping stays valid after the channel is closed
+			final ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY,
+					0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+			if (bytes.remaining() < HEADER_BYTES || bytes.getInt() != MAGIC) {
+				throw new IOException(file + " is not an n-gram model");
+			}
+			final int version = bytes.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported n-gram model version "
+						+ version);
+			}
+
+			final FloatBuffer[] tables = new FloatBuffer[MAX_ORDER + 1];
+			for (int n = MIN_ORDER; n <= MAX_ORDER; n++) {
+				if (bytes.remaining() < 4 + 4L * SIZES[n] || bytes.getInt() != n) {
+					throw new IOException(file + " is truncated or corrupt");
+				}
+				final ByteBuffer table = bytes.slice().order(
+						ByteOrder.LITTLE_ENDIAN);
+				table.limit(4 * SIZES[n]);
+				tables[n] = table.asFloatBuffer();
+				bytes.position(bytes.position() + 4 * SIZES[n]);
+			}
+			return new NgramModel(tables);
+		}
+	}
+
+	/**
+	 * Writes the model in the format {@link #load(Path)} maps.
+	 */
+	public void write(final Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(
+					ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).flip();
+			writeFully(channel, header);
+
+			for (int n = MIN_ORDER; n <= MAX_ORDER; n++) {
+				final ByteBuffer table = ByteBuffer.allocate(4 + 4 * SIZES[n])
+						.order(ByteOrder.LITTLE_ENDIAN);
+				table.putInt(n);
+				table.asFloatBuffer().put(tables[n].duplicate().clear());
+				table.clear();
+				writeFully(channel, table);
+			}
+		}
+	}
+
+	private static void writeFully(final FileChannel channel,
+			final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Returns the log probability of the n-gram with the given index.
+	 */
+	public float get(final int order, final int index) {
+		checkOrder(order);
+		return tables[order].get(index);
+	}
+
+	/**
+	 * Sums the log probabilities of every n-gram of the letters in
+	 * <code>len</code> chars of <code>text</code>. Case is ignored and
+	 * anything other than a letter is skipped.
+	 */
+	public float score(final int order, final char[] text, final int off,
+			final int len) {
+		checkOrder(order);
+		final FloatBuffer table = tables[order];
+		final int window = SIZES[order - 1];
+		int index = 0, letters = 0;
+		float score = 0;
+		for (int i = off; i < off + len; i++) {
+			final int letter = letter(text[i]);
+			if (letter < 0) {
+				continue;
+			}
+			index = roll(index, window, letter);
+			if (++letters >= order) {
+				score += table.get(index);
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * Like {@link #score(int, char[], int, int)} for a CharSequence.
+	 */
+	public float score(final int order, final CharSequence text) {
+		checkOrder(order);
+		final FloatBuffer table = tables[order];
+		final int window = SIZES[order - 1];
+		int index = 0, letters = 0;
+		float score = 0;
+		for (int i = 0; i < text.length(); i++) {
+			final int letter = letter(text.charAt(i));
+			if (letter < 0) {
+				continue;
+			}
+			index = roll(index, window, letter);
+			if (++letters >= order) {
+				score += table.get(index);
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * Like {@link #score(int, char[], int, int)} for ASCII bytes.
+	 */
+	public float score(final int order, final byte[] text, final int off,
+			final int len) {
+		checkOrder(order);
+		final FloatBuffer table = tables[order];
+		final int window = SIZES[order - 1];
+		int index = 0, letters = 0;
+		float score = 0;
+		for (int i = off; i < off + len; i++) {
+			final int letter = letter(text[i] & 0xff);
+			if (letter < 0) {
+				continue;
+			}
+			index = roll(index, window, letter);
+			if (++letters >= order) {
+				score += table.get(index);
+			}
+		}
+		return score;
+	}
+
+	/**
+	 * Returns the alphabet index (0 to 25) of the letter <code>c</code> in
+	 * either case, or -1 if it is not a letter.
+	 */
+	private static int letter(final int c) {
+		final int letter = (c | 0x20) - 'a';
+		return letter >= 0 && letter < ALPHABET_SIZE && c <= 'z' ? letter : -1;
+	}
+
+	/**
+	 * Appends <code>letter</code> to an n-gram index after dropping its
+	 * oldest letter; <code>window</code> is 26<sup>n-1</sup>.
+	 */
+	private static int roll(final int index, final int window,
+			final int letter) {
+		return (index % window) * ALPHABET_SIZE + letter;
+	}
+
+	/**
+	 * Sums the log probabilities of every n-gram of <code>len</code> letters
+	 * already given as alphabet indices (0 to 25), as a cracker holds its
+	 * candidate plaintexts.
+	 */
+	public float scoreLetters(final int order, final int[] letters,
+			final int off, final int len) {
+		checkOrder(order);
+		if (len < order) {
+			return 0;
+		}
+		final FloatBuffer table = tables[order];
+		final int window = SIZES[order - 1];
+		int index = 0;
+		for (int i = off; i < off + order; i++) {
+			index = index * ALPHABET_SIZE + letters[i];
+		}
+		float score = table.get(index);
+		for (int i = off + order; i < off + len; i++) {
+			// the letters are known to be in range, so the leading one can
+			// be subtracted instead of taken off with a division
+			index = (index - letters[i - order] * window) * ALPHABET_SIZE
+					+ letters[i];
+			score += table.get(index);
+		}
+		return score;
+	}
+
+	/**
+	 * Builds a model file from a text corpus.
+	 * <p>
+	 * Usage: <code>java cryptotools.NgramModel corpus.txt model.bin</code>
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: java cryptotools.NgramModel <corpus> <model>");
+			System.exit(1);
+		}
+		final NgramModel model;
+		try (Reader corpus = new FileReader(args[0])) {
+			model = NgramModel.build(corpus);
+		}
+		model.write(Paths.get(args[1]));
+	}
+}
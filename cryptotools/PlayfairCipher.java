@@ -1,8 +1,12 @@
 package cryptotools;
 
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -18,36 +22,42 @@ public class PlayfairCipher implements Cipher {
 	// background classes
 	// TODO: add final where possible
 
-	private static class Index {
-		final int x, y;
+	private static final Pattern PLAINTEXT_PATTERN = Pattern.compile("[a-z]+");
 
-		public Index(int x, int y) {
-			this.x = x;
-			this.y = y;
-		}
+	private static final char[] LOWERCASE_ALPHABET = { 'a', 'b', 'c', 'd', 'e',
+			'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'r', 's',
+			't', 'u', 'v', 'w', 'x', 'y', 'z' }; // note q missing
 
-		public int getX() {
-			return x;
-		}
+	private static final int LETTER_COUNT = 25;
 
-		public int getY() {
-			return y;
-		}
-	}
+	private static final int FILLER_INDEX = letterIndex('x');
 
-	private static final Pattern PLAINTEXT_PATTERN = Pattern.compile("[a-z]+");
+	private static final String PLAINTEXT_ERROR = "Plaintext must contain only a "
+			+ "string of characters within [a-z] (q's will be removed)";
 
-	private static final Pattern CIPHERTEXT_PATTERN = Pattern.compile("[A-Z]+");
+	private static final String CIPHERTEXT_ERROR = "Ciphertext must contain "
+			+ "only a string of characters within [A-Z]";
 
-	private static final char[] LOWERCASE_ALPHABET = { 'a', 'b', 'c', 'd', 'e',
-			'f', 'g', 'h', 'i', 'j', 'k', 'l', 'm', 'n', 'o', 'p', 'r', 's',
-			't', 'u', 'v', 'w', 'x', 'y', 'z' }; // note q missing
+	/**
+	 * Starting size of the buffer shared by the messages of a batch.
+	 */
+	private static final int INITIAL_BATCH_BUFFER_SIZE = 256;
 
 	private HashSet<Character> usedCharacters;
 
 	private char[][] table = new char[5][5];
 
-	private HashMap<Character, Index> tableMap;
+	// column (x) and row (y) of each letter, by letter index
+	private final int[] letterX = new int[LETTER_COUNT];
+
+	private final int[] letterY = new int[LETTER_COUNT];
+
+	// output digraph for each input digraph, indexed by
+	// letterIndex(a) * 25 + letterIndex(b) and packed as (a' << 16) | b'.
+	// encryption yields uppercase letters and decryption lowercase.
+	private final int[] encryptTable = new int[LETTER_COUNT * LETTER_COUNT];
+
+	private final int[] decryptTable = new int[LETTER_COUNT * LETTER_COUNT];
 
 	public PlayfairCipher(String key) {
 		// check that key only contains letters
@@ -62,6 +72,7 @@ public class PlayfairCipher implements Cipher {
 		LinkedList<Character> unusedCharacters = getUnusedCharacters();
 
 		initializeTable(newKey, unusedCharacters);
+		createDigraphTables();
 	}
 
 	private LinkedList<Character> removeDuplicateCharacters(final String key) {
@@ -96,12 +107,12 @@ public class PlayfairCipher implements Cipher {
 			LinkedList<Character> unusedCharacters) {
 		// initialize table
 		// first add key with duplicates removed
-		tableMap = new HashMap<Character, Index>(26);
 		int i = 0, j = 0;
 		while (!newKey.isEmpty()) {
 			char c = newKey.removeFirst();
 			table[i][j] = c;
-			tableMap.put(c, new Index(i, j));
+			letterX[letterIndex(c)] = i;
+			letterY[letterIndex(c)] = j;
 
 			// increment
 			i++;
@@ -115,7 +126,8 @@ public class PlayfairCipher implements Cipher {
 		while (!unusedCharacters.isEmpty()) {
 			char c = unusedCharacters.removeFirst();
 			table[i][j] = c;
-			tableMap.put(c, new Index(i, j));
+			letterX[letterIndex(c)] = i;
+			letterY[letterIndex(c)] = j;
 
 			// increment
 			i++;
@@ -126,6 +138,69 @@ public class PlayfairCipher implements Cipher {
 		}
 	}
 
+	/**
+	 * Maps a lowercase letter other than 'q' to its place in [0,24] without
+	 * branching.
+	 */
+	private static int letterIndex(final int c) {
+		return c - 'a' - (('q' - c) >>> 31);
+	}
+
+	/**
+	 * Applies the Playfair rules to every possible digraph once, so that
+	 * encrypting or decrypting a digraph later is a single table load.
+	 */
+	private void createDigraphTables() {
+		for (int a = 0; a < LETTER_COUNT; a++) {
+			for (int b = 0; b < LETTER_COUNT; b++) {
+				final int ax = letterX[a], ay = letterY[a];
+				final int bx = letterX[b], by = letterY[b];
+				final int index = a * LETTER_COUNT + b;
+
+				if (ay == by) {
+					// if the letters appear on the same row of the table,
+					// replace them with the letters to their immediate right
+					// respectively (wrapping around to the left side of the
+					// row if a letter in the original pair was on the right
+					// side of the row); decryption goes left instead
+					encryptTable[index] = pack(table[(ax + 1) % 5][ay],
+							table[(bx + 1) % 5][by], true);
+					decryptTable[index] = pack(table[(ax + 4) % 5][ay],
+							table[(bx + 4) % 5][by], false);
+				} else if (ax == bx) {
+					// if the letters appear on the same column of your table,
+					// replace them with the letters immediately below
+					// respectively (wrapping around to the top side of the
+					// column if a letter in the original pair was on the
+					// bottom side of the column); decryption goes up instead
+					encryptTable[index] = pack(table[ax][(ay + 1) % 5],
+							table[bx][(by + 1) % 5], true);
+					decryptTable[index] = pack(table[ax][(ay + 4) % 5],
+							table[bx][(by + 4) % 5], false);
+				} else {
+					// if the letters are not on the same row or column,
+					// replace them with the letters on the same row
+					// respectively but at the other pair of corners of the
+					// rectangle defined by the original pair (its own
+					// inverse)
+					encryptTable[index] = pack(table[bx][ay], table[ax][by],
+							true);
+					decryptTable[index] = pack(table[bx][ay], table[ax][by],
+							false);
+				}
+			}
+		}
+	}
+
+	private static int pack(final char first, final char second,
+			final boolean upperCase) {
+		if (upperCase) {
+			return (Character.toUpperCase(first) << 16)
+					| Character.toUpperCase(second);
+		}
+		return (first << 16) | second;
+	}
+
 	public String getTableString() {
 		StringBuilder tableString = new StringBuilder();
 		for (int j = 0; j < 5; j++) {
@@ -137,58 +212,186 @@ public class PlayfairCipher implements Cipher {
 		return tableString.toString();
 	}
 
+	/**
+	 * Encrypts plaintext in a single pass: each letter is validated, 'q' is
+	 * dropped, fillers are inserted and digraphs are encrypted as the letters
+	 * arrive, straight into a buffer sized for the worst case. The result is
+	 * the same as encrypting {@link #formatPlaintext(String)}.
+	 * 
+	 * @param plaintext
+	 *            Plaintext (must match the pattern [a-z]+).
+	 * @return Ciphertext (matches the pattern [A-Z]*).
+	 */
 	public String encrypt(final String plaintext) {
-		// check for correct input
-		final Matcher plaintextMatcher = PLAINTEXT_PATTERN.matcher(plaintext);
-		if (!plaintextMatcher.matches()) {
-			throw new IllegalArgumentException("Plaintext must contain only a "
-					+ "string of characters within [a-z] (q's will be removed)");
-		}
-
-		// encrypt plaintext
-		String text = formatPlaintext(plaintext);
-
-		StringBuilder ciphertext = new StringBuilder();
-
-		for (int i = 0, j = 1; j < text.length(); i += 2, j += 2) {
-			Index iIndex = tableMap.get(text.charAt(i));
-			Index jIndex = tableMap.get(text.charAt(j));
-
-			if (iIndex.getY() == jIndex.getY()) {
-				// if the letters appear on the same row of the table, replace
-				// them with the letters to their immediate right respectively
-				// (wrapping around to the left side of the row if a letter in
-				// the original pair was on the right side of the row)
-				int y = iIndex.getY();
-				int ix = (iIndex.getX() + 1) % 5;
-				int jx = (jIndex.getX() + 1) % 5;
-				ciphertext.append(table[ix][y]);
-				ciphertext.append(table[jx][y]);
-			} else if (iIndex.getX() == jIndex.getX()) {
-				// if the letters appear on the same column of your table,
-				// replace them with the letters immediately below respectively
-				// (wrapping around to the top side of the column if a letter in
-				// the original pair was on the bottom side of the column)
-				int x = iIndex.getX();
-				int iy = (iIndex.getY() + 1) % 5;
-				int jy = (jIndex.getY() + 1) % 5;
-				ciphertext.append(table[x][iy]);
-				ciphertext.append(table[x][jy]);
+		final byte[] ciphertext = new byte[maxCiphertextLength(plaintext
+				.length())];
+		return new String(ciphertext, 0, encrypt(plaintext, ciphertext, 0),
+				StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Returns the longest ciphertext a plaintext of <code>length</code>
+	 * characters can produce: each pair of letters can gain a filler, plus one
+	 * to pad the end.
+	 */
+	public static int maxCiphertextLength(final int length) {
+		return length + length / 2 + 2;
+	}
+
+	/**
+	 * Encrypts <code>len</code> ASCII plaintext bytes of <code>src</code>
+	 * starting at <code>off</code> into <code>dst</code> starting at
+	 * <code>dstOff</code>, with no decoding or intermediate copies, and
+	 * returns the number of ciphertext bytes written. <code>dst</code> needs
+	 * room for {@link #maxCiphertextLength(int)} bytes and must not overlap
+	 * the input.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a byte is not within [a-z]
+	 */
+	public int encryptInto(final byte[] src, final int off, final int len,
+			final byte[] dst, final int dstOff) {
+		return encrypt(new AsciiSequence(src, off, len), dst, dstOff);
+	}
+
+	/**
+	 * Decrypts <code>len</code> ASCII ciphertext bytes of <code>src</code>
+	 * starting at <code>off</code> into as many bytes of <code>dst</code>
+	 * starting at <code>dstOff</code>. Pass the same array and offset to
+	 * decrypt in place.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the bytes are not an even number of letters within [A-Z]
+	 *             other than 'Q'
+	 */
+	public void decryptInto(final byte[] src, final int off, final int len,
+			final byte[] dst, final int dstOff) {
+		decrypt(new AsciiSequence(src, off, len), dst, dstOff);
+	}
+
+	/**
+	 * Read-only view of ASCII bytes as characters, so the byte entry points
+	 * share the validating loops of the String ones.
+	 */
+	private static class AsciiSequence implements CharSequence {
+		private final byte[] bytes;
+		private final int off, len;
+
+		AsciiSequence(final byte[] bytes, final int off, final int len) {
+			if (off < 0 || len < 0 || off + len > bytes.length) {
+				throw new IndexOutOfBoundsException();
+			}
+			this.bytes = bytes;
+			this.off = off;
+			this.len = len;
+		}
+
+		public int length() {
+			return len;
+		}
+
+		public char charAt(final int index) {
+			return (char) (bytes[off + index] & 0xff);
+		}
+
+		public CharSequence subSequence(final int start, final int end) {
+			return new AsciiSequence(bytes, off + start, end - start);
+		}
+
+		public String toString() {
+			return new String(bytes, off, len, StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	/**
+	 * Encrypts <code>plaintext</code> into <code>ciphertext</code> starting at
+	 * <code>pos</code>, which must have room for
+	 * {@link #maxCiphertextLength(int)} characters, and returns the number
+	 * written.
+	 */
+	private int encrypt(final CharSequence plaintext, final byte[] ciphertext,
+			final int pos) {
+		final int length = plaintext.length();
+		if (length == 0) {
+			throw new IllegalArgumentException(PLAINTEXT_ERROR);
+		}
+
+		int count = pos;
+
+		// first letter of the current input pair, and first letter of the
+		// next digraph to encrypt (only set after a filler shifted the
+		// digraphs off the input pairs)
+		int pendingLetter = -1;
+		int pendingDigraph = -1;
+
+		for (int i = 0; i < length; i++) {
+			final char c = plaintext.charAt(i);
+			if (c < 'a' || c > 'z') {
+				throw new IllegalArgumentException(PLAINTEXT_ERROR);
+			}
+			if (c == 'q') {
+				continue;
+			}
+
+			final int letter = letterIndex(c);
+			if (pendingLetter < 0) {
+				pendingLetter = letter;
+				continue;
+			}
+
+			// the pair (a, b) is written out as a b, or a x b if a == b
+			final int a = pendingLetter, b = letter;
+			pendingLetter = -1;
+			if (pendingDigraph < 0) {
+				if (a != b) {
+					putDigraph(a, b, ciphertext, count);
+					count += 2;
+				} else {
+					putDigraph(a, FILLER_INDEX, ciphertext, count);
+					count += 2;
+					pendingDigraph = b;
+				}
+			} else {
+				putDigraph(pendingDigraph, a, ciphertext, count);
+				count += 2;
+				if (a != b) {
+					pendingDigraph = b;
+				} else {
+					putDigraph(FILLER_INDEX, b, ciphertext, count);
+					count += 2;
+					pendingDigraph = -1;
+				}
+			}
+		}
+
+		if (pendingLetter >= 0) {
+			// text has an odd length
+			if (pendingDigraph < 0) {
+				pendingDigraph = pendingLetter;
 			} else {
-				// if the letters are not on the same row or column, replace
-				// them with the letters on the same row respectively but at the
-				// other pair of corners of the rectangle defined by the
-				// original pair
-				int ix = iIndex.getX();
-				int iy = iIndex.getY();
-				int jx = jIndex.getX();
-				int jy = jIndex.getY();
-				ciphertext.append(table[jx][iy]);
-				ciphertext.append(table[ix][jy]);
+				putDigraph(pendingDigraph, pendingLetter, ciphertext, count);
+				count += 2;
+				pendingDigraph = -1;
 			}
 		}
+		if (pendingDigraph >= 0) {
+			// formatted text has an odd length
+			putDigraph(pendingDigraph, FILLER_INDEX, ciphertext, count);
+			count += 2;
+		}
+
+		return count - pos;
+	}
 
-		return ciphertext.toString().toUpperCase();
+	/**
+	 * Writes the encryption of the digraph (a, b), given as letter indices,
+	 * to <code>dst</code> at <code>pos</code>.
+	 */
+	private void putDigraph(final int a, final int b, final byte[] dst,
+			final int pos) {
+		final int digraph = encryptTable[a * LETTER_COUNT + b];
+		dst[pos] = (byte) (digraph >>> 16);
+		dst[pos + 1] = (byte) digraph;
 	}
 
 	public String formatPlaintext(String text) {
@@ -230,64 +433,294 @@ public class PlayfairCipher implements Cipher {
 	}
 
 	public String decrypt(final String ciphertext) {
-		// check for correct input
-		final Matcher ciphertextMatcher = CIPHERTEXT_PATTERN
-				.matcher(ciphertext);
-		if (!ciphertextMatcher.matches()) {
-			throw new IllegalArgumentException(
-					"Ciphertext must contain only a string of characters within [A-Z]");
+		final byte[] plaintext = new byte[ciphertext.length()];
+		decrypt(ciphertext, plaintext, 0);
+		return new String(plaintext, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Decrypts <code>ciphertext</code> into <code>plaintext</code> starting at
+	 * <code>pos</code>, in one pass that also validates the input.
+	 */
+	private void decrypt(final CharSequence ciphertext, final byte[] plaintext,
+			final int pos) {
+		final int length = ciphertext.length();
+		if (length == 0) {
+			throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+		}
+
+		// a Q maps onto R's index; the text is rejected after the loop
+		boolean containsQ = false;
+		for (int i = 0; i + 1 < length; i += 2) {
+			final char a = ciphertext.charAt(i), b = ciphertext.charAt(i + 1);
+			if (a < 'A' || a > 'Z' || b < 'A' || b > 'Z') {
+				throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+			}
+			containsQ |= a == 'Q' || b == 'Q';
+			final int digraph = decryptTable[letterIndex(a + ('a' - 'A'))
+					* LETTER_COUNT + letterIndex(b + ('a' - 'A'))];
+			plaintext[pos + i] = (byte) (digraph >>> 16);
+			plaintext[pos + i + 1] = (byte) digraph;
+		}
+		if (length % 2 == 1) {
+			final char last = ciphertext.charAt(length - 1);
+			if (last < 'A' || last > 'Z') {
+				throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+			}
+			containsQ |= last == 'Q';
 		}
-		if (ciphertext.contains("Q")) {
+		if (containsQ) {
 			throw new IllegalArgumentException("Ciphertext cannot contain 'Q'");
 		}
-		if (ciphertext.length() % 2 == 1) {
+		if (length % 2 == 1) {
 			throw new IllegalArgumentException(
 					"Ciphertext must be of even length");
 		}
+	}
+
+	public List<String> encryptAll(final List<? extends CharSequence> plaintexts) {
+		final List<String> ciphertexts = new ArrayList<String>(
+				plaintexts.size());
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (CharSequence plaintext : plaintexts) {
+			buffer = ensureCapacity(buffer, maxCiphertextLength(plaintext
+					.length()));
+			ciphertexts.add(new String(buffer, 0, encrypt(plaintext, buffer, 0),
+					StandardCharsets.ISO_8859_1));
+		}
+		return ciphertexts;
+	}
+
+	public void encryptAll(final CharSequence[] plaintexts,
+			final String[] ciphertexts) {
+		if (ciphertexts.length < plaintexts.length) {
+			throw new IllegalArgumentException("Output array is too short");
+		}
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (int i = 0; i < plaintexts.length; i++) {
+			buffer = ensureCapacity(buffer, maxCiphertextLength(plaintexts[i]
+					.length()));
+			ciphertexts[i] = new String(buffer, 0, encrypt(plaintexts[i],
+					buffer, 0), StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	public List<String> decryptAll(final List<? extends CharSequence> ciphertexts) {
+		final List<String> plaintexts = new ArrayList<String>(
+				ciphertexts.size());
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (CharSequence ciphertext : ciphertexts) {
+			buffer = ensureCapacity(buffer, ciphertext.length());
+			decrypt(ciphertext, buffer, 0);
+			plaintexts.add(new String(buffer, 0, ciphertext.length(),
+					StandardCharsets.ISO_8859_1));
+		}
+		return plaintexts;
+	}
+
+	public void decryptAll(final CharSequence[] ciphertexts,
+			final String[] plaintexts) {
+		if (plaintexts.length < ciphertexts.length) {
+			throw new IllegalArgumentException("Output array is too short");
+		}
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (int i = 0; i < ciphertexts.length; i++) {
+			buffer = ensureCapacity(buffer, ciphertexts[i].length());
+			decrypt(ciphertexts[i], buffer, 0);
+			plaintexts[i] = new String(buffer, 0, ciphertexts[i].length(),
+					StandardCharsets.ISO_8859_1);
+		}
+	}
+
+	private static byte[] ensureCapacity(final byte[] buffer, final int length) {
+		return buffer.length >= length ? buffer : new byte[Math.max(length,
+				2 * buffer.length)];
+	}
+
+	/**
+	 * Formatting and encryption of a plaintext stream. Gives the same result
+	 * as {@link #encrypt(String)} on the formatted text: letters are paired as
+	 * they arrive, an 'x' goes between the letters of a doubled pair, and a
+	 * trailing 'x' pads an odd-length message.
+	 */
+	private class Encryptor implements CipherTransform {
+		private static final char NONE = 0;
+
+		// first letter of the current input pair
+		private char pendingLetter = NONE;
+
+		// first letter of the next digraph to encrypt
+		private char pendingDigraph = NONE;
+
+		// ciphertext produced by the last call to accept or finish
+		private final char[] output = new char[MAX_OUTPUT_PER_INPUT];
+
+		private int outputCount;
+
+		public void update(final CharBuffer in, final CharBuffer out) {
+			while (in.hasRemaining()) {
+				if (pendingLetter != NONE
+						&& out.remaining() < MAX_OUTPUT_PER_INPUT) {
+					// completing a pair can emit two digraphs
+					return;
+				}
+				accept(in.get());
+				out.put(output, 0, outputCount);
+			}
+		}
+
+		public void update(final ByteBuffer in, final ByteBuffer out) {
+			while (in.hasRemaining()) {
+				if (pendingLetter != NONE
+						&& out.remaining() < MAX_OUTPUT_PER_INPUT) {
+					return;
+				}
+				accept((char) (in.get() & 0xff));
+				for (int i = 0; i < outputCount; i++) {
+					out.put((byte) output[i]);
+				}
+			}
+		}
+
+		public void finish(final CharBuffer out) {
+			finish();
+			out.put(output, 0, outputCount);
+		}
+
+		public void finish(final ByteBuffer out) {
+			finish();
+			for (int i = 0; i < outputCount; i++) {
+				out.put((byte) output[i]);
+			}
+		}
+
+		/**
+		 * Takes one input character, leaving any ciphertext it completes in
+		 * <code>output</code>.
+		 */
+		private void accept(char c) {
+			outputCount = 0;
+			if (c >= 'A' && c <= 'Z') {
+				c += 'a' - 'A';
+			}
+			if (c < 'a' || c > 'z' || c == 'q') {
+				return;
+			}
+
+			if (pendingLetter == NONE) {
+				pendingLetter = c;
+			} else {
+				emit(pendingLetter);
+				if (pendingLetter == c) {
+					// cannot have same letters in pair
+					emit('x');
+				}
+				emit(c);
+				pendingLetter = NONE;
+			}
+		}
+
+		private void finish() {
+			outputCount = 0;
+			if (pendingLetter != NONE) {
+				// text has an odd length
+				emit(pendingLetter);
+				pendingLetter = NONE;
+			}
+			if (pendingDigraph != NONE) {
+				// formatted text has an odd length
+				emit('x');
+			}
+		}
 
-		// decrypt ciphertext
-		// assuming ciphertext properly formatted
-		String text = ciphertext.toLowerCase();
-
-		StringBuilder plaintext = new StringBuilder();
-		for (int i = 0, j = 1; j < text.length(); i += 2, j += 2) {
-			Index iIndex = tableMap.get(text.charAt(i));
-			Index jIndex = tableMap.get(text.charAt(j));
-
-			if (iIndex.getY() == jIndex.getY()) {
-				// if the letters appear on the same row of the table, replace
-				// them with the letters to their immediate right respectively
-				// (wrapping around to the left side of the row if a letter in
-				// the original pair was on the right side of the row)
-				int y = iIndex.getY();
-				int ix = (iIndex.getX() - 1) % 5;
-				int jx = (jIndex.getX() - 1) % 5;
-				plaintext.append(table[ix][y]);
-				plaintext.append(table[jx][y]);
-			} else if (iIndex.getX() == jIndex.getX()) {
-				// if the letters appear on the same column of your table,
-				// replace them with the letters immediately below respectively
-				// (wrapping around to the top side of the column if a letter in
-				// the original pair was on the bottom side of the column)
-				int x = iIndex.getX();
-				int iy = (iIndex.getY() + 4) % 5;
-				int jy = (jIndex.getY() + 4) % 5;
-				plaintext.append(table[x][iy]);
-				plaintext.append(table[x][jy]);
+		private void emit(final char c) {
+			if (pendingDigraph == NONE) {
+				pendingDigraph = c;
 			} else {
-				// if the letters are not on the same row or column, replace
-				// them with the letters on the same row respectively but at the
-				// other pair of corners of the rectangle defined by the
-				// original pair
-				int ix = iIndex.getX();
-				int iy = iIndex.getY();
-				int jx = jIndex.getX();
-				int jy = jIndex.getY();
-				plaintext.append(table[jx][iy]);
-				plaintext.append(table[ix][jy]);
+				final int digraph = encryptTable[letterIndex(pendingDigraph)
+						* LETTER_COUNT + letterIndex(c)];
+				output[outputCount++] = (char) (digraph >>> 16);
+				output[outputCount++] = (char) digraph;
+				pendingDigraph = NONE;
 			}
 		}
-		return plaintext.toString();
+	}
+
+	private class Decryptor implements CipherTransform {
+		private char pending = 0;
+
+		public void update(final CharBuffer in, final CharBuffer out) {
+			while (in.hasRemaining()) {
+				if (pending != 0 && out.remaining() < 2) {
+					return;
+				}
+				final int digraph = accept(in.get());
+				if (digraph >= 0) {
+					out.put((char) (digraph >>> 16));
+					out.put((char) digraph);
+				}
+			}
+		}
+
+		public void update(final ByteBuffer in, final ByteBuffer out) {
+			while (in.hasRemaining()) {
+				if (pending != 0 && out.remaining() < 2) {
+					return;
+				}
+				final int digraph = accept((char) (in.get() & 0xff));
+				if (digraph >= 0) {
+					out.put((byte) (digraph >>> 16));
+					out.put((byte) digraph);
+				}
+			}
+		}
+
+		/**
+		 * Takes one ciphertext character and returns the plaintext digraph it
+		 * completes, or -1.
+		 */
+		private int accept(final char c) {
+			if (c < 'A' || c > 'Z') {
+				throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+			}
+			if (c == 'Q') {
+				throw new IllegalArgumentException(
+						"Ciphertext cannot contain 'Q'");
+			}
+
+			final char lower = Character.toLowerCase(c);
+			if (pending == 0) {
+				pending = lower;
+				return -1;
+			}
+			final int digraph = decryptTable[letterIndex(pending)
+					* LETTER_COUNT + letterIndex(lower)];
+			pending = 0;
+			return digraph;
+		}
+
+		public void finish(final CharBuffer out) {
+			finish();
+		}
+
+		public void finish(final ByteBuffer out) {
+			finish();
+		}
+
+		private void finish() {
+			if (pending != 0) {
+				throw new IllegalArgumentException(
+						"Ciphertext must be of even length");
+			}
+		}
+	}
+
+	public CipherTransform newEncryptor() {
+		return new Encryptor();
+	}
+
+	public CipherTransform newDecryptor() {
+		return new Decryptor();
 	}
 
 	public static void main(String[] args) {
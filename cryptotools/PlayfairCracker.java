@@ -0,0 +1,332 @@
+package cryptotools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ciphertext-only attack on {@link PlayfairCipher} by simulated annealing
+ * over 5x5 key squares, scored with quadgram log probabilities.
+ * <p>
+ * A key square is held as two int arrays (letter at each position, position
+ * of each letter) and mutated in place by swapping two cells, two rows or two
+ * columns; a rejected move is undone by applying it again. Decryption of a
+ * digraph depends only on the positions of its letters, so it is a single
+ * load from a table shared by every key. Nothing is allocated per candidate.
+ * <p>
+ * Restarts run on every worker of the common fork/join pool. Workers publish
+ * improvements to a shared best key, and every other restart starts from that
+ * key instead of a random one.
+ */
+public class PlayfairCracker {
+
+	private static final int SIZE = 5;
+
+	private static final int LETTER_COUNT = SIZE * SIZE;
+
+	private static final int ALPHABET_SIZE = 26;
+
+	public static final int DEFAULT_RESTARTS = 8;
+
+	private static final int STEPS_PER_TEMPERATURE = 10000;
+
+	private static final double TEMPERATURE_STEP = 0.2;
+
+	// Playfair letter index (no q) to letter and to alphabet index
+	private static final char[] INDEX_LETTER = new char[LETTER_COUNT];
+
+	private static final int[] INDEX_ALPHABET = new int[LETTER_COUNT];
+
+	// plaintext positions of the digraph at positions (a, b), indexed by
+	// a * 25 + b and packed as (a' << 8) | b'
+	private static final int[] DECRYPT_POSITIONS = new int[LETTER_COUNT
+			* LETTER_COUNT];
+
+	static {
+		for (int i = 0; i < LETTER_COUNT; i++) {
+			final char c = (char) ('a' + i + (i >= 'q' - 'a' ? 1 : 0));
+			INDEX_LETTER[i] = c;
+			INDEX_ALPHABET[i] = c - 'a';
+		}
+
+		for (int a = 0; a < LETTER_COUNT; a++) {
+			for (int b = 0; b < LETTER_COUNT; b++) {
+				final int ax = a % SIZE, ay = a / SIZE;
+				final int bx = b % SIZE, by = b / SIZE;
+				final int first, second;
+				if (ay == by) {
+					// same row: go left
+					first = ay * SIZE + (ax + SIZE - 1) % SIZE;
+					second = by * SIZE + (bx + SIZE - 1) % SIZE;
+				} else if (ax == bx) {
+					// same column: go up
+					first = ((ay + SIZE - 1) % SIZE) * SIZE + ax;
+					second = ((by + SIZE - 1) % SIZE) * SIZE + bx;
+				} else {
+					// rectangle: swap columns
+					first = ay * SIZE + bx;
+					second = by * SIZE + ax;
+				}
+				DECRYPT_POSITIONS[a * LETTER_COUNT + b] = (first << 8) | second;
+			}
+		}
+	}
+
+	/**
+	 * A recovered key square with its fitness.
+	 */
+	public static class Result {
+		final String key;
+		final double score;
+
+		public Result(final String key, final double score) {
+			this.key = key;
+			this.score = score;
+		}
+
+		/**
+		 * Returns the 25 letters of the square row by row, which
+		 * {@link PlayfairCipher#PlayfairCipher(String)} turns back into the
+		 * same square.
+		 */
+		public String getKey() {
+			return key;
+		}
+
+		/**
+		 * Returns the sum of the quadgram log probabilities of the decryption.
+		 */
+		public double getScore() {
+			return score;
+		}
+
+		public String toString() {
+			return key + " (" + String.format("%.1f", score) + ")";
+		}
+	}
+
+	private final NgramModel model;
+
+	/**
+	 * @param model
+	 *            model whose quadgrams score the candidate decryptions
+	 */
+	public PlayfairCracker(final NgramModel model) {
+		this.model = model;
+	}
+
+	/**
+	 * Shared best key over all restarts.
+	 */
+	private static class Best {
+		final int[] grid = new int[LETTER_COUNT];
+		double score = Double.NEGATIVE_INFINITY;
+
+		synchronized void offer(final int[] candidate, final double candidateScore) {
+			if (candidateScore > score) {
+				System.arraycopy(candidate, 0, grid, 0, LETTER_COUNT);
+				score = candidateScore;
+			}
+		}
+
+		/**
+		 * Copies the best key into <code>dst</code>; returns false if there is
+		 * none yet.
+		 */
+		synchronized boolean copyTo(final int[] dst) {
+			if (score == Double.NEGATIVE_INFINITY) {
+				return false;
+			}
+			System.arraycopy(grid, 0, dst, 0, LETTER_COUNT);
+			return true;
+		}
+	}
+
+	public Result crack(final String ciphertext) {
+		return crack(ciphertext, DEFAULT_RESTARTS, System.nanoTime());
+	}
+
+	/**
+	 * Runs <code>restarts</code> annealing runs over the common fork/join
+	 * pool and returns the best key found.
+	 *
+	 * @param ciphertext
+	 *            Ciphertext (must match the pattern [A-Z]+, without 'Q', of
+	 *            even length)
+	 * @param seed
+	 *            seed for the random moves; results also depend on thread
+	 *            timing when run on more than one worker
+	 */
+	public Result crack(final String ciphertext, final int restarts,
+			final long seed) {
+		final int length = ciphertext.length();
+		if (length == 0 || length % 2 == 1) {
+			throw new IllegalArgumentException(
+					"Ciphertext must be of even length");
+		}
+		if (restarts < 1) {
+			throw new IllegalArgumentException("restarts must be positive");
+		}
+		final int[] cipher = new int[length];
+		for (int i = 0; i < length; i++) {
+			final char c = ciphertext.charAt(i);
+			if (c < 'A' || c > 'Z' || c == 'Q') {
+				throw new IllegalArgumentException(
+						"Ciphertext must contain only a string of characters within [A-Z] other than 'Q'");
+			}
+			cipher[i] = c - 'A' - (c > 'Q' ? 1 : 0);
+		}
+
+		// empirical scaling of the start temperature with text length,
+		// for log10 quadgram scores
+		final double startTemperature = Math.max(10 + 0.087 * (length - 84),
+				1);
+
+		final Best best = new Best();
+		final AtomicInteger nextRestart = new AtomicInteger();
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final int workerCount = Math.min(restarts, pool.getParallelism());
+		final SplittableRandom seeds = new SplittableRandom(seed);
+		final List<ForkJoinTask<?>> workers = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < workerCount; i++) {
+			final SplittableRandom random = seeds.split();
+			workers.add(pool.submit(new Runnable() {
+				public void run() {
+					final Annealer annealer = new Annealer(cipher, random);
+					int restart;
+					while ((restart = nextRestart.getAndIncrement()) < restarts) {
+						if (restart % 2 == 0 || !best.copyTo(annealer.grid)) {
+							annealer.shuffle();
+						}
+						annealer.anneal(startTemperature, best);
+					}
+				}
+			}));
+		}
+		for (ForkJoinTask<?> worker : workers) {
+			worker.join();
+		}
+
+		final char[] key = new char[LETTER_COUNT];
+		for (int i = 0; i < LETTER_COUNT; i++) {
+			key[i] = INDEX_LETTER[best.grid[i]];
+		}
+		return new Result(new String(key), best.score);
+	}
+
+	/**
+	 * One worker's key square and scratch space.
+	 */
+	private class Annealer {
+		private final int[] cipher;
+
+		private final SplittableRandom random;
+
+		// letter at each position and position of each letter
+		final int[] grid = new int[LETTER_COUNT];
+
+		private final int[] position = new int[LETTER_COUNT];
+
+		private final int[] plaintext;
+
+		Annealer(final int[] cipher, final SplittableRandom random) {
+			this.cipher = cipher;
+			this.random = random;
+			plaintext = new int[cipher.length];
+			for (int i = 0; i < LETTER_COUNT; i++) {
+				grid[i] = i;
+			}
+		}
+
+		void shuffle() {
+			for (int i = LETTER_COUNT - 1; i > 0; i--) {
+				swapCells(i, random.nextInt(i + 1));
+			}
+		}
+
+		void anneal(final double startTemperature, final Best best) {
+			for (int i = 0; i < LETTER_COUNT; i++) {
+				position[grid[i]] = i;
+			}
+			double score = score();
+			best.offer(grid, score);
+
+			for (double temperature = startTemperature; temperature > 0; temperature -= TEMPERATURE_STEP) {
+				for (int step = 0; step < STEPS_PER_TEMPERATURE; step++) {
+					final int move = random.nextInt(50);
+					final int a = random.nextInt(LETTER_COUNT);
+					final int b = random.nextInt(LETTER_COUNT);
+					apply(move, a, b);
+
+					final double candidate = score();
+					final double delta = candidate - score;
+					if (delta >= 0
+							|| random.nextDouble() < Math.exp(delta
+									/ temperature)) {
+						score = candidate;
+						if (delta > 0) {
+							best.offer(grid, score);
+						}
+					} else {
+						// every move is its own inverse
+						apply(move, a, b);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Mostly swaps two cells; one move in 50 swaps two rows and one in 50
+		 * two columns.
+		 */
+		private void apply(final int move, final int a, final int b) {
+			if (move == 0) {
+				swapRows(a % SIZE, b % SIZE);
+			} else if (move == 1) {
+				swapColumns(a % SIZE, b % SIZE);
+			} else {
+				swapCells(a, b);
+			}
+		}
+
+		private void swapCells(final int a, final int b) {
+			final int letterA = grid[a], letterB = grid[b];
+			grid[a] = letterB;
+			grid[b] = letterA;
+			position[letterA] = b;
+			position[letterB] = a;
+		}
+
+		private void swapRows(final int a, final int b) {
+			for (int x = 0; x < SIZE; x++) {
+				swapCells(a * SIZE + x, b * SIZE + x);
+			}
+		}
+
+		private void swapColumns(final int a, final int b) {
+			for (int y = 0; y < SIZE; y++) {
+				swapCells(y * SIZE + a, y * SIZE + b);
+			}
+		}
+
+		/**
+		 * Decrypts the ciphertext with the current square and sums the
+		 * quadgram log probabilities of the result.
+		 */
+		private double score() {
+			final int[] cipher = this.cipher, plaintext = this.plaintext, grid = this.grid, position = this.position;
+			final int length = cipher.length;
+			for (int i = 0; i < length; i += 2) {
+				final int positions = DECRYPT_POSITIONS[position[cipher[i]]
+						* LETTER_COUNT + position[cipher[i + 1]]];
+				plaintext[i] = INDEX_ALPHABET[grid[positions >>> 8]];
+				plaintext[i + 1] = INDEX_ALPHABET[grid[positions & 0xff]];
+			}
+
+			return model.scoreLetters(4, plaintext, 0, length);
+		}
+	}
+}
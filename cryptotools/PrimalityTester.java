@@ -0,0 +1,185 @@
+package cryptotools;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Deterministic Miller-Rabin primality test for 32- and 64-bit integers.
+ * Writing n - 1 = d * 2<sup>s</sup> with d odd, a witness a proves n composite
+ * unless a<sup>d</sup> = 1 or a<sup>d * 2^r</sup> = -1 mod n for some r &lt; s.
+ * A fixed set of witnesses is known to expose every composite below a bound:
+ * {2, 7, 61} below 2<sup>32</sup> (Jaeschke) and Sinclair's seven witnesses
+ * below 2<sup>64</sup>, so the answers are exact, not probable.
+ * <p>
+ * ints are tested with plain long products. Wider longs use a
+ * {@link MontgomeryMultiplier}, built once per candidate and kept in
+ * Montgomery form through every squaring. Division by the primes below 64
+ * runs first and settles most composites before any exponentiation.
+ */
+public class PrimalityTester {
+
+	private static final int[] INT_WITNESSES = { 2, 7, 61 };
+
+	private static final long[] LONG_WITNESSES = { 2, 325, 9375, 28178,
+			450775, 9780504, 1795265022 };
+
+	private static final int[] SMALL_PRIMES = { 2, 3, 5, 7, 11, 13, 17, 19, 23,
+			29, 31, 37, 41, 43, 47, 53, 59, 61 };
+
+	/**
+	 * Candidates tested by one task of {@link #testAllParallel(long[])}.
+	 */
+	private static final int BATCH_SEGMENT_SIZE = 1 << 12;
+
+	/**
+	 * Returns true if <code>n</code> is prime; negative numbers, 0 and 1 are
+	 * not.
+	 */
+	public static boolean isPrime(final int n) {
+		if (n < 2) {
+			return false;
+		}
+		for (final int p : SMALL_PRIMES) {
+			if (n % p == 0) {
+				return n == p;
+			}
+		}
+		if (n < 64 * 64) {
+			// no prime factor below 64
+			return true;
+		}
+
+		final int s = Integer.numberOfTrailingZeros(n - 1);
+		final int d = (n - 1) >>> s;
+		for (final int a : INT_WITNESSES) {
+			if (isWitness(ModularExponentiator.computeModExp(a, d, n), s, n)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if x = a<sup>d</sup> mod n shows n composite.
+	 */
+	private static boolean isWitness(long x, final int s, final int n) {
+		if (x == 1 || x == n - 1) {
+			return false;
+		}
+		for (int r = 1; r < s; r++) {
+			// n < 2^31, so the square fits in a long
+			x = x * x % n;
+			if (x == n - 1) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns true if <code>n</code> is prime; negative numbers, 0 and 1 are
+	 * not.
+	 */
+	public static boolean isPrime(final long n) {
+		if (n <= Integer.MAX_VALUE) {
+			return n >= 2 && isPrime((int) n);
+		}
+		for (final int p : SMALL_PRIMES) {
+			if (n % p == 0) {
+				return false;
+			}
+		}
+
+		final MontgomeryMultiplier montgomery = new MontgomeryMultiplier(n);
+		final int s = Long.numberOfTrailingZeros(n - 1);
+		final long d = (n - 1) >>> s;
+		final long one = montgomery.one();
+		// -1 in Montgomery form
+		final long minusOne = n - one;
+		// n > 2^31, so every witness is already a nonzero residue
+		for (final long a : LONG_WITNESSES) {
+			long x = montgomery.toMontgomery(montgomery.modExp(a, d));
+			if (x == one || x == minusOne) {
+				continue;
+			}
+			int r = 1;
+			for (; r < s; r++) {
+				x = montgomery.multiply(x, x);
+				if (x == minusOne) {
+					break;
+				}
+			}
+			if (r == s) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tests every candidate and returns the results in the same order.
+	 */
+	public static boolean[] testAll(final long[] candidates) {
+		final boolean[] results = new boolean[candidates.length];
+		testAll(candidates, 0, candidates.length, results, 0);
+		return results;
+	}
+
+	/**
+	 * Tests <code>len</code> candidates starting at <code>off</code>,
+	 * writing whether each is prime to <code>results</code> starting at
+	 * <code>resultsOff</code>.
+	 */
+	public static void testAll(final long[] candidates, final int off,
+			final int len, final boolean[] results, final int resultsOff) {
+		for (int i = 0; i < len; i++) {
+			results[resultsOff + i] = isPrime(candidates[off + i]);
+		}
+	}
+
+	/**
+	 * Like {@link #testAll(long[])}, testing segments of the array on the
+	 * common fork/join pool.
+	 */
+	public static boolean[] testAllParallel(final long[] candidates) {
+		final boolean[] results = new boolean[candidates.length];
+		ForkJoinPool.commonPool().invoke(
+				new TestTask(candidates, 0, candidates.length, results));
+		return results;
+	}
+
+	/**
+	 * Halves its range until it is one segment long, then tests the segment.
+	 */
+	private static class TestTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final long[] candidates;
+		private final boolean[] results;
+		private final int off, len;
+
+		TestTask(final long[] candidates, final int off, final int len,
+				final boolean[] results) {
+			this.candidates = candidates;
+			this.off = off;
+			this.len = len;
+			this.results = results;
+		}
+
+		protected void compute() {
+			if (len <= BATCH_SEGMENT_SIZE) {
+				testAll(candidates, off, len, results, off);
+			} else {
+				final int half = len / 2;
+				invokeAll(new TestTask(candidates, off, half, results),
+						new TestTask(candidates, off + half, len - half,
+								results));
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		System.out.println(isPrime(Long.parseLong(args.length > 0 ? args[0]
+				: "9223372036854775783")));
+	}
+}
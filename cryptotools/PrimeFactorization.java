@@ -0,0 +1,98 @@
+package cryptotools;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Prime factorization of a positive number as found by
+ * {@link IntegerFactorizer}: the prime factors in increasing order, each
+ * repeated as often as it divides the number. If the time budget ran out
+ * first, the composite parts still to split are kept apart, and the primes
+ * times those parts still multiply out to the number.
+ */
+public class PrimeFactorization {
+	private final BigInteger n;
+
+	private final BigInteger[] factors;
+
+	private final BigInteger[] unfactored;
+
+	PrimeFactorization(final BigInteger n, final BigInteger[] factors,
+			final BigInteger[] unfactored) {
+		this.n = n;
+		this.factors = factors;
+		this.unfactored = unfactored;
+		Arrays.sort(this.factors);
+		Arrays.sort(this.unfactored);
+	}
+
+	public BigInteger getNumber() {
+		return n;
+	}
+
+	/**
+	 * Returns the prime factors in increasing order, with repetition. 1 has
+	 * none.
+	 */
+	public BigInteger[] getFactors() {
+		return factors.clone();
+	}
+
+	/**
+	 * Returns the prime factors as longs.
+	 *
+	 * @throws ArithmeticException
+	 *             if a factor does not fit in a long
+	 */
+	public long[] getLongFactors() {
+		final long[] longFactors = new long[factors.length];
+		for (int i = 0; i < factors.length; i++) {
+			longFactors[i] = factors[i].longValueExact();
+		}
+		return longFactors;
+	}
+
+	/**
+	 * Returns the composite parts that were not split in time, in increasing
+	 * order.
+	 */
+	public BigInteger[] getUnfactored() {
+		return unfactored.clone();
+	}
+
+	/**
+	 * Returns true if every factor is prime.
+	 */
+	public boolean isComplete() {
+		return unfactored.length == 0;
+	}
+
+	/**
+	 * Returns the factors as a product with exponents, e.g. "2^3 * 3 * 7";
+	 * unfactored parts are shown in brackets.
+	 */
+	public String toString() {
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < factors.length;) {
+			int j = i + 1;
+			while (j < factors.length && factors[j].equals(factors[i])) {
+				j++;
+			}
+			if (sb.length() > 0) {
+				sb.append(" * ");
+			}
+			sb.append(factors[i]);
+			if (j - i > 1) {
+				sb.append('^').append(j - i);
+			}
+			i = j;
+		}
+		for (BigInteger part : unfactored) {
+			if (sb.length() > 0) {
+				sb.append(" * ");
+			}
+			sb.append('[').append(part).append(']');
+		}
+		return sb.length() > 0 ? sb.toString() : "1";
+	}
+}
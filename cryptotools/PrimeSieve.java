@@ -0,0 +1,334 @@
+package cryptotools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Segmented Sieve of Eratosthenes for numbers below {@link #LIMIT}
+ * (2<sup>40</sup>). A range is sieved one segment at a time, so memory stays
+ * at one segment whatever the size of the range.
+ * <p>
+ * A segment is a <code>long[]</code> bitset of {@link #SEGMENT_BYTES} bytes in
+ * which each bit stands for one odd number; even numbers other than 2 are
+ * never stored. The segment fits in the L1 data cache, so crossing off the
+ * multiples of every base prime (the odd primes below 2<sup>20</sup>, sieved
+ * once when the class loads) never leaves the cache. Counting can split the
+ * segments over the common fork/join pool, each worker with its own bitset.
+ */
+public class PrimeSieve {
+
+	/**
+	 * Exclusive upper bound of every range.
+	 */
+	public static final long LIMIT = 1L << 40;
+
+	/**
+	 * Size of a segment's bitset, chosen to fit a 32 KB L1 data cache.
+	 */
+	public static final int SEGMENT_BYTES = 1 << 15;
+
+	private static final int SEGMENT_BITS = SEGMENT_BYTES * 8;
+
+	// numbers covered by one segment, odd and even
+	private static final long SEGMENT_SPAN = 2L * SEGMENT_BITS;
+
+	/**
+	 * Bound of the base primes, sqrt(LIMIT).
+	 */
+	private static final int BASE_LIMIT = 1 << 20;
+
+	// odd primes below BASE_LIMIT, enough to sieve any segment
+	private static final int[] BASE_PRIMES = basePrimes(BASE_LIMIT);
+
+	/**
+	 * Sieves the odd primes below <code>limit</code> with a plain sieve.
+	 */
+	private static int[] basePrimes(final int limit) {
+		// composite[i] stands for 2i + 1
+		final boolean[] composite = new boolean[limit / 2];
+		int count = 0;
+		for (int i = 1; i < composite.length; i++) {
+			if (!composite[i]) {
+				count++;
+				final long p = 2 * i + 1;
+				for (long j = p * p / 2; j < composite.length; j += p) {
+					composite[(int) j] = true;
+				}
+			}
+		}
+
+		final int[] primes = new int[count];
+		count = 0;
+		for (int i = 1; i < composite.length; i++) {
+			if (!composite[i]) {
+				primes[count++] = 2 * i + 1;
+			}
+		}
+		return primes;
+	}
+
+	/**
+	 * One sieved segment. Bit i of <code>bits</code> is set if low + 2i + 1
+	 * is prime.
+	 */
+	private static class Segment {
+		final long[] bits = new long[SEGMENT_BITS / 64];
+
+		long low;
+
+		// bits in use
+		int size;
+
+		/**
+		 * Sieves the odd numbers in [low, high), where low is even and high -
+		 * low is at most SEGMENT_SPAN.
+		 */
+		void sieve(final long low, final long high) {
+			this.low = low;
+			size = (int) ((high - low) >>> 1);
+			final int words = (size + 63) >>> 6;
+			Arrays.fill(bits, 0, words, -1L);
+			if ((size & 63) != 0) {
+				bits[words - 1] = -1L >>> (64 - (size & 63));
+			}
+
+			for (final int p : BASE_PRIMES) {
+				long start = (long) p * p;
+				if (start >= high) {
+					break;
+				}
+				if (start <= low) {
+					// first odd multiple of p above low
+					start = (low / p + 1) * p;
+					if ((start & 1) == 0) {
+						start += p;
+					}
+				}
+				for (long i = (start - low - 1) >>> 1; i < size; i += p) {
+					bits[(int) (i >>> 6)] &= ~(1L << i);
+				}
+			}
+
+			if (low == 0) {
+				// 1 is not prime
+				bits[0] &= ~1L;
+			}
+		}
+
+		int words() {
+			return (size + 63) >>> 6;
+		}
+
+		long count() {
+			long count = 0;
+			for (int w = 0; w < words(); w++) {
+				count += Long.bitCount(bits[w]);
+			}
+			return count;
+		}
+
+		/**
+		 * Returns the number that bit <code>bit</code> of word
+		 * <code>w</code> stands for.
+		 */
+		long valueOf(final int w, final int bit) {
+			return low + 2L * ((w << 6) + bit) + 1;
+		}
+	}
+
+	private static void checkRange(final long from, final long to) {
+		if (from < 0 || to > LIMIT || from > to) {
+			throw new IllegalArgumentException(
+					"Range must satisfy 0 <= from <= to <= 2^40");
+		}
+	}
+
+	/**
+	 * Returns the number of segments covering the odd numbers in [base, to).
+	 */
+	private static long segmentCount(final long base, final long to) {
+		return (to - base + SEGMENT_SPAN - 1) / SEGMENT_SPAN;
+	}
+
+	// 2 is the only prime the odd-only segments leave out
+	private static int countTwo(final long from, final long to) {
+		return from <= 2 && to > 2 ? 1 : 0;
+	}
+
+	/**
+	 * Counts the primes in [from, to).
+	 */
+	public static long countPrimes(final long from, final long to) {
+		checkRange(from, to);
+		final Segment segment = new Segment();
+		// an even base makes the first bit stand for from or from + 1
+		final long base = from & ~1L;
+		long count = countTwo(from, to);
+		for (long low = base; low < to; low += SEGMENT_SPAN) {
+			segment.sieve(low, Math.min(low + SEGMENT_SPAN, to));
+			count += segment.count();
+		}
+		return count;
+	}
+
+	/**
+	 * Like {@link #countPrimes(long, long)}, sieving segments on every
+	 * worker of the common fork/join pool.
+	 */
+	public static long countPrimesParallel(final long from, final long to) {
+		checkRange(from, to);
+		final long base = from & ~1L;
+		final long segments = segmentCount(base, to);
+
+		final AtomicLong nextSegment = new AtomicLong();
+		final AtomicLong total = new AtomicLong(countTwo(from, to));
+		final ForkJoinPool pool = ForkJoinPool.commonPool();
+		final int workerCount = (int) Math.min(pool.getParallelism(), segments);
+		final List<ForkJoinTask<?>> workers = new ArrayList<ForkJoinTask<?>>();
+		for (int i = 0; i < workerCount; i++) {
+			workers.add(pool.submit(new Runnable() {
+				public void run() {
+					final Segment segment = new Segment();
+					long count = 0;
+					long index;
+					while ((index = nextSegment.getAndIncrement()) < segments) {
+						final long low = base + index * SEGMENT_SPAN;
+						segment.sieve(low, Math.min(low + SEGMENT_SPAN, to));
+						count += segment.count();
+					}
+					total.addAndGet(count);
+				}
+			}));
+		}
+		for (ForkJoinTask<?> worker : workers) {
+			worker.join();
+		}
+		return total.get();
+	}
+
+	/**
+	 * Passes every prime in [from, to) to <code>action</code>, in increasing
+	 * order.
+	 */
+	public static void forEachPrime(final long from, final long to,
+			final LongConsumer action) {
+		checkRange(from, to);
+		if (countTwo(from, to) > 0) {
+			action.accept(2);
+		}
+		final Segment segment = new Segment();
+		for (long low = from & ~1L; low < to; low += SEGMENT_SPAN) {
+			segment.sieve(low, Math.min(low + SEGMENT_SPAN, to));
+			for (int w = 0; w < segment.words(); w++) {
+				long word = segment.bits[w];
+				while (word != 0) {
+					action.accept(segment.valueOf(w,
+							Long.numberOfTrailingZeros(word)));
+					// clear the lowest set bit
+					word &= word - 1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns an iterator over the primes in [from, to), in increasing order.
+	 * Segments are sieved as the iterator reaches them, so stopping early
+	 * costs nothing for the rest of the range.
+	 */
+	public static PrimitiveIterator.OfLong iterator(final long from,
+			final long to) {
+		checkRange(from, to);
+		return new PrimeIterator(from, to);
+	}
+
+	private static class PrimeIterator implements PrimitiveIterator.OfLong {
+		private final long to;
+
+		private final Segment segment = new Segment();
+
+		// low end of the next segment to sieve
+		private long nextLow;
+
+		private boolean two;
+
+		// index and unread bits of the current word
+		private int w = -1;
+
+		private long word;
+
+		PrimeIterator(final long from, final long to) {
+			this.to = to;
+			nextLow = from & ~1L;
+			two = countTwo(from, to) > 0;
+		}
+
+		public boolean hasNext() {
+			if (two) {
+				return true;
+			}
+			while (word == 0) {
+				if (w + 1 < segment.words()) {
+					word = segment.bits[++w];
+				} else if (nextLow < to) {
+					segment.sieve(nextLow, Math.min(nextLow + SEGMENT_SPAN, to));
+					nextLow += SEGMENT_SPAN;
+					w = -1;
+				} else {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		public long nextLong() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			if (two) {
+				two = false;
+				return 2;
+			}
+			final long prime = segment.valueOf(w,
+					Long.numberOfTrailingZeros(word));
+			word &= word - 1;
+			return prime;
+		}
+	}
+
+	/**
+	 * Returns true if <code>n</code> is prime, by table lookup below
+	 * 2<sup>20</sup> and by {@link PrimalityTester} above.
+	 *
+	 * @param n
+	 *            number within [0, 2^40)
+	 */
+	public static boolean isPrime(final long n) {
+		checkRange(n, n + 1);
+		if (n < 3) {
+			return n == 2;
+		}
+		if ((n & 1) == 0) {
+			return false;
+		}
+		if (n < BASE_LIMIT) {
+			return Arrays.binarySearch(BASE_PRIMES, (int) n) >= 0;
+		}
+		return PrimalityTester.isPrime(n);
+	}
+
+	public static void main(String[] args) {
+		final long to = args.length > 0 ? Long.parseLong(args[0]) : 1000000000L;
+		final long start = System.nanoTime();
+		final long count = countPrimesParallel(0, to);
+		System.out.printf("%d primes below %d in %.2f s%n", count, to,
+				(System.nanoTime() - start) / 1e9);
+	}
+}
@@ -1,8 +1,15 @@
 package cryptotools;
 
-import java.util.HashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Java implementation of the classical Shift Cipher cryptosystem. Every letter
@@ -27,15 +34,58 @@ public class ShiftCipher implements Cipher {
 			'F', 'G', 'H', 'I', 'J', 'K', 'L', 'M', 'N', 'O', 'P', 'Q', 'R',
 			'S', 'T', 'U', 'V', 'W', 'X', 'Y', 'Z' };
 
-	private static final Pattern PLAINTEXT_PATTERN = Pattern.compile("[a-z]+");
+	/**
+	 * Messages at least this long take the bulk path when it is enabled.
+	 */
+	private static final int BULK_THRESHOLD = 64;
+
+	/**
+	 * Messages shorter than this are encrypted on the calling thread by the
+	 * parallel methods unless a threshold is given.
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
+
+	/**
+	 * Characters handled by one parallel task: 64 KB of input and 64 KB of
+	 * output, which stays within a core's L2 cache.
+	 */
+	private static final int PARALLEL_SEGMENT_SIZE = 1 << 15;
+
+	// reads and writes eight bytes of a byte array as one long
+	private static final VarHandle LONG_VIEW = MethodHandles
+			.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private static final VarHandle LONG_BUFFER_VIEW = MethodHandles
+			.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+	// a long with every byte lane set to 1, and to its high bit
+	private static final long LANES = 0x0101010101010101L;
+
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	private static volatile boolean bulkEnabled = !"false".equals(System
+			.getProperty("cryptotools.shift.bulk"));
 
-	private static final Pattern CIPHERTEXT_PATTERN = Pattern.compile("[A-Z]+");
+	// true if jdk.incubator.vector is resolved and the CPU has SIMD lanes
+	private static final boolean VECTOR_SUPPORTED = checkVectorSupport();
 
-	private final HashMap<Character, Character> encryptHashMap = new HashMap<Character, Character>(
-			26);
+	private static volatile boolean vectorEnabled = VECTOR_SUPPORTED
+			&& !"false".equals(System.getProperty("cryptotools.shift.vector"));
 
-	private final HashMap<Character, Character> decryptHashMap = new HashMap<Character, Character>(
-			26);
+	/**
+	 * Starting size of the buffer shared by the messages of a batch.
+	 */
+	private static final int INITIAL_BATCH_BUFFER_SIZE = 256;
+
+	private static final String PLAINTEXT_ERROR = "Plaintext must contain only a string of characters within [a-z]";
+
+	private static final String CIPHERTEXT_ERROR = "Ciphertext must contain only a string of characters within [A-Z]";
+
+	// indexed by (plainChar - 'a')
+	private final char[] encryptTable = new char[ALPHABET_SIZE];
+
+	// indexed by (cipherChar - 'A')
+	private final char[] decryptTable = new char[ALPHABET_SIZE];
 
 	private final int key;
 
@@ -54,8 +104,8 @@ public class ShiftCipher implements Cipher {
 		// initialize the key
 		this.key = key;
 
-		// create the hashmap based on the key
-		createCryptHashMaps();
+		// create the lookup tables based on the key
+		createCryptTables();
 	}
 
 	public String formatPlaintext(String text) {
@@ -65,9 +115,9 @@ public class ShiftCipher implements Cipher {
 	}
 
 	/**
-	 * Creates encryption and decryption hash maps based on the key.
+	 * Creates encryption and decryption lookup tables based on the key.
 	 */
-	private void createCryptHashMaps() {
+	private void createCryptTables() {
 		int shiftIndex = key;
 		for (int index = 0; index < ALPHABET_SIZE; index++) {
 
@@ -76,11 +126,9 @@ public class ShiftCipher implements Cipher {
 				shiftIndex = 0;
 			}
 
-			// create hash maps
-			encryptHashMap.put(LOWERCASE_ALPHABET[index],
-					UPPERCASE_ALPHABET[shiftIndex]);
-			decryptHashMap.put(UPPERCASE_ALPHABET[shiftIndex],
-					LOWERCASE_ALPHABET[index]);
+			// fill tables
+			encryptTable[index] = UPPERCASE_ALPHABET[shiftIndex];
+			decryptTable[shiftIndex] = LOWERCASE_ALPHABET[index];
 
 			// increment shift index
 			shiftIndex++;
@@ -95,21 +143,25 @@ public class ShiftCipher implements Cipher {
 	 * @return Ciphertext (matches the pattern [A-Z]+).
 	 */
 	public String encrypt(final String plaintext) {
-		// check for correct input
-		final Matcher plaintextMatcher = PLAINTEXT_PATTERN.matcher(plaintext);
-		if (!plaintextMatcher.matches()) {
-			throw new IllegalArgumentException(
-					"Plaintext must contain only a string of characters within [a-z]");
+		final int length = plaintext.length();
+		if (length == 0) {
+			throw new IllegalArgumentException(PLAINTEXT_ERROR);
 		}
 
-		// encrypt plaintext
-		final StringBuilder ciphertextBuilder = new StringBuilder();
-		final char[] plainChars = plaintext.toCharArray();
-		for (char plainChar : plainChars) {
-			Character cipherChar = encryptHashMap.get(plainChar);
-			ciphertextBuilder.append(cipherChar);
+		if (length >= BULK_THRESHOLD && bulkEnabled) {
+			// characters outside Latin-1 become '?' and fail validation
+			final byte[] bytes = plaintext
+					.getBytes(StandardCharsets.ISO_8859_1);
+			if (!shiftBytes(bytes, 0, length, bytes, 0, 'a', key, 'A')) {
+				throw new IllegalArgumentException(PLAINTEXT_ERROR);
+			}
+			return new String(bytes, StandardCharsets.ISO_8859_1);
 		}
-		return ciphertextBuilder.toString();
+
+		final char[] chars = new char[length];
+		plaintext.getChars(0, length, chars, 0);
+		encryptInto(chars, 0, length, chars, 0);
+		return new String(chars);
 	}
 
 	/**
@@ -120,22 +172,601 @@ public class ShiftCipher implements Cipher {
 	 * @return Plaintext (matches the pattern [a-z]+).
 	 */
 	public String decrypt(final String ciphertext) {
-		// check for correct input
-		final Matcher ciphertextMatcher = CIPHERTEXT_PATTERN
-				.matcher(ciphertext);
-		if (!ciphertextMatcher.matches()) {
-			throw new IllegalArgumentException(
-					"Ciphertext must contain only a string of characters within [A-Z]");
+		final int length = ciphertext.length();
+		if (length == 0) {
+			throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+		}
+
+		if (length >= BULK_THRESHOLD && bulkEnabled) {
+			final byte[] bytes = ciphertext
+					.getBytes(StandardCharsets.ISO_8859_1);
+			if (!shiftBytes(bytes, 0, length, bytes, 0, 'A',
+					ALPHABET_SIZE - key, 'a')) {
+				throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+			}
+			return new String(bytes, StandardCharsets.ISO_8859_1);
+		}
+
+		final char[] chars = new char[length];
+		ciphertext.getChars(0, length, chars, 0);
+		decryptInto(chars, 0, length, chars, 0);
+		return new String(chars);
+	}
+
+	public List<String> encryptAll(final List<? extends CharSequence> plaintexts) {
+		final List<String> ciphertexts = new ArrayList<String>(
+				plaintexts.size());
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (CharSequence plaintext : plaintexts) {
+			buffer = ensureCapacity(buffer, plaintext.length());
+			ciphertexts.add(lookUp(plaintext, 'a', encryptTable, buffer,
+					PLAINTEXT_ERROR));
+		}
+		return ciphertexts;
+	}
+
+	public void encryptAll(final CharSequence[] plaintexts,
+			final String[] ciphertexts) {
+		if (ciphertexts.length < plaintexts.length) {
+			throw new IllegalArgumentException("Output array is too short");
+		}
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (int i = 0; i < plaintexts.length; i++) {
+			buffer = ensureCapacity(buffer, plaintexts[i].length());
+			ciphertexts[i] = lookUp(plaintexts[i], 'a', encryptTable, buffer,
+					PLAINTEXT_ERROR);
+		}
+	}
+
+	public List<String> decryptAll(final List<? extends CharSequence> ciphertexts) {
+		final List<String> plaintexts = new ArrayList<String>(
+				ciphertexts.size());
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (CharSequence ciphertext : ciphertexts) {
+			buffer = ensureCapacity(buffer, ciphertext.length());
+			plaintexts.add(lookUp(ciphertext, 'A', decryptTable, buffer,
+					CIPHERTEXT_ERROR));
+		}
+		return plaintexts;
+	}
+
+	public void decryptAll(final CharSequence[] ciphertexts,
+			final String[] plaintexts) {
+		if (plaintexts.length < ciphertexts.length) {
+			throw new IllegalArgumentException("Output array is too short");
+		}
+		byte[] buffer = new byte[INITIAL_BATCH_BUFFER_SIZE];
+		for (int i = 0; i < ciphertexts.length; i++) {
+			buffer = ensureCapacity(buffer, ciphertexts[i].length());
+			plaintexts[i] = lookUp(ciphertexts[i], 'A', decryptTable, buffer,
+					CIPHERTEXT_ERROR);
+		}
+	}
+
+	private static byte[] ensureCapacity(final byte[] buffer, final int length) {
+		return buffer.length >= length ? buffer : new byte[Math.max(length,
+				2 * buffer.length)];
+	}
+
+	/**
+	 * Maps each character of <code>text</code> through <code>table</code>
+	 * (indexed from <code>first</code>) into <code>buffer</code>. The output
+	 * is ASCII, so the string is built from the bytes with a single copy.
+	 */
+	private static String lookUp(final CharSequence text, final char first,
+			final char[] table, final byte[] buffer, final String error) {
+		final int length = text.length();
+		if (length == 0) {
+			throw new IllegalArgumentException(error);
+		}
+		for (int i = 0; i < length; i++) {
+			final int index = text.charAt(i) - first;
+			if (index < 0 || index >= ALPHABET_SIZE) {
+				throw new IllegalArgumentException(error);
+			}
+			buffer[i] = (byte) table[index];
+		}
+		return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+	}
+
+	/**
+	 * Encrypts <code>len</code> plaintext characters of <code>src</code>
+	 * starting at <code>off</code>, writing the ciphertext to <code>dst</code>
+	 * starting at <code>dstOff</code>. Allocates nothing, and
+	 * <code>src</code> and <code>dst</code> may be the same array.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a character is not within [a-z]; <code>dst</code> may
+	 *             then hold a partial result
+	 */
+	public void encryptInto(final char[] src, final int off, final int len,
+			final char[] dst, final int dstOff) {
+		final char[] table = encryptTable;
+		for (int i = 0; i < len; i++) {
+			final int index = src[off + i] - 'a';
+			if (index < 0 || index >= ALPHABET_SIZE) {
+				throw new IllegalArgumentException(PLAINTEXT_ERROR);
+			}
+			dst[dstOff + i] = table[index];
+		}
+	}
+
+	/**
+	 * Decrypts <code>len</code> ciphertext characters of <code>src</code>
+	 * starting at <code>off</code>, writing the plaintext to <code>dst</code>
+	 * starting at <code>dstOff</code>. Allocates nothing, and
+	 * <code>src</code> and <code>dst</code> may be the same array.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a character is not within [A-Z]; <code>dst</code> may
+	 *             then hold a partial result
+	 */
+	public void decryptInto(final char[] src, final int off, final int len,
+			final char[] dst, final int dstOff) {
+		final char[] table = decryptTable;
+		for (int i = 0; i < len; i++) {
+			final int index = src[off + i] - 'A';
+			if (index < 0 || index >= ALPHABET_SIZE) {
+				throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+			}
+			dst[dstOff + i] = table[index];
+		}
+	}
+
+	/**
+	 * Encrypts the letters among <code>len</code> characters of
+	 * <code>src</code> starting at <code>off</code>, lowercasing them first as
+	 * {@link #formatPlaintext(String)} would, and copies every other character
+	 * unchanged. The output lines up with the input character for character,
+	 * so unformatted text can be previewed and patched one edit at a time.
+	 * <code>src</code> and <code>dst</code> may be the same array.
+	 */
+	public void encryptLettersInto(final char[] src, final int off,
+			final int len, final char[] dst, final int dstOff) {
+		final char[] table = encryptTable;
+		for (int i = 0; i < len; i++) {
+			final char c = src[off + i];
+			// setting bit 5 lowercases A-Z and leaves a-z as they are
+			final int index = (c | 0x20) - 'a';
+			dst[dstOff + i] = index >= 0 && index < ALPHABET_SIZE ? table[index]
+					: c;
+		}
+	}
+
+	/**
+	 * Encrypts <code>len</code> ASCII plaintext bytes of <code>src</code>
+	 * starting at <code>off</code>, writing the ciphertext to <code>dst</code>
+	 * starting at <code>dstOff</code>, a vector or eight bytes at a time.
+	 * Allocates nothing; pass the same array and offset to encrypt in place.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a byte is not within [a-z]; <code>dst</code> may then
+	 *             hold a partial result
+	 */
+	public void encryptInto(final byte[] src, final int off, final int len,
+			final byte[] dst, final int dstOff) {
+		if (!shiftInto(src, off, len, dst, dstOff, 'a', key, 'A')) {
+			throw new IllegalArgumentException(PLAINTEXT_ERROR);
+		}
+	}
+
+	/**
+	 * Decrypts <code>len</code> ASCII ciphertext bytes; see
+	 * {@link #encryptInto(byte[], int, int, byte[], int)}.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a byte is not within [A-Z]
+	 */
+	public void decryptInto(final byte[] src, final int off, final int len,
+			final byte[] dst, final int dstOff) {
+		if (!shiftInto(src, off, len, dst, dstOff, 'A', ALPHABET_SIZE - key,
+				'a')) {
+			throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+		}
+	}
+
+	/**
+	 * Shifts from <code>src</code> straight into <code>dst</code>, in one
+	 * pass. Distinct ranges of one array are copied across first, since a
+	 * forward pass could overwrite bytes it has yet to read.
+	 */
+	private static boolean shiftInto(final byte[] src, final int off,
+			final int len, final byte[] dst, final int dstOff,
+			final char first, final int shift, final char base) {
+		if (src == dst && off != dstOff) {
+			System.arraycopy(src, off, dst, dstOff, len);
+			return shiftBytes(dst, dstOff, len, dst, dstOff, first, shift,
+					base);
+		}
+		return shiftBytes(src, off, len, dst, dstOff, first, shift, base);
+	}
+
+	/**
+	 * Encrypts the remaining bytes of <code>buffer</code> in place, leaving
+	 * its position and limit unchanged. Works on heap and direct buffers, so
+	 * data read from a channel can be encrypted where it landed.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a byte is not within [a-z]; the buffer may then be
+	 *             partly encrypted
+	 */
+	public void encrypt(final ByteBuffer buffer) {
+		if (!shiftBuffer(buffer, buffer.position(), buffer.remaining(), 'a',
+				key, 'A')) {
+			throw new IllegalArgumentException(PLAINTEXT_ERROR);
+		}
+	}
+
+	/**
+	 * Decrypts the remaining bytes of <code>buffer</code> in place; see
+	 * {@link #encrypt(ByteBuffer)}.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if a byte is not within [A-Z]
+	 */
+	public void decrypt(final ByteBuffer buffer) {
+		if (!shiftBuffer(buffer, buffer.position(), buffer.remaining(), 'A',
+				ALPHABET_SIZE - key, 'a')) {
+			throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+		}
+	}
+
+	/**
+	 * Encrypts like {@link #encryptInto}, splitting messages of at least
+	 * {@link #DEFAULT_PARALLEL_THRESHOLD} characters into segments that are
+	 * encrypted on the common fork/join pool.
+	 */
+	public void encryptParallel(final char[] src, final int off,
+			final int len, final char[] dst, final int dstOff) {
+		encryptParallel(src, off, len, dst, dstOff, ForkJoinPool.commonPool(),
+				DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Encrypts like {@link #encryptInto}, splitting messages of at least
+	 * <code>threshold</code> characters into segments that are encrypted on
+	 * <code>pool</code>. Each segment writes straight into its own range of
+	 * <code>dst</code>.
+	 */
+	public void encryptParallel(final char[] src, final int off,
+			final int len, final char[] dst, final int dstOff,
+			final ForkJoinPool pool, final int threshold) {
+		if (len < threshold) {
+			encryptInto(src, off, len, dst, dstOff);
+		} else {
+			pool.invoke(new ShiftTask(true, src, off, len, dst, dstOff));
+		}
+	}
+
+	/**
+	 * Decrypts like {@link #decryptInto}; see {@link #encryptParallel}.
+	 */
+	public void decryptParallel(final char[] src, final int off,
+			final int len, final char[] dst, final int dstOff) {
+		decryptParallel(src, off, len, dst, dstOff, ForkJoinPool.commonPool(),
+				DEFAULT_PARALLEL_THRESHOLD);
+	}
+
+	/**
+	 * Decrypts like {@link #decryptInto}; see {@link #encryptParallel}.
+	 */
+	public void decryptParallel(final char[] src, final int off,
+			final int len, final char[] dst, final int dstOff,
+			final ForkJoinPool pool, final int threshold) {
+		if (len < threshold) {
+			decryptInto(src, off, len, dst, dstOff);
+		} else {
+			pool.invoke(new ShiftTask(false, src, off, len, dst, dstOff));
+		}
+	}
+
+	/**
+	 * Halves its range until it is one segment long, then encrypts or
+	 * decrypts the segment.
+	 */
+	private class ShiftTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final boolean encrypt;
+		private final char[] src, dst;
+		private final int off, len, dstOff;
+
+		ShiftTask(final boolean encrypt, final char[] src, final int off,
+				final int len, final char[] dst, final int dstOff) {
+			this.encrypt = encrypt;
+			this.src = src;
+			this.off = off;
+			this.len = len;
+			this.dst = dst;
+			this.dstOff = dstOff;
+		}
+
+		protected void compute() {
+			if (len <= PARALLEL_SEGMENT_SIZE) {
+				if (encrypt) {
+					encryptInto(src, off, len, dst, dstOff);
+				} else {
+					decryptInto(src, off, len, dst, dstOff);
+				}
+			} else {
+				final int half = len >>> 1;
+				invokeAll(new ShiftTask(encrypt, src, off, half, dst, dstOff),
+						new ShiftTask(encrypt, src, off + half, len - half,
+								dst, dstOff + half));
+			}
+		}
+	}
+
+	/**
+	 * Shifts <code>len</code> ASCII letters of <code>src</code> into
+	 * <code>dst</code>, whose ranges must be the same or must not overlap.
+	 * With the vector path enabled, {@link ShiftVectors} takes every whole
+	 * vector. The rest goes eight at a time: each long holds eight byte
+	 * lanes, and every step below keeps its lanes within [0,255] so no carry
+	 * or borrow crosses into a neighbour; range checks and the mod-26 wrap
+	 * become lane masks instead of branches. The last few bytes take the
+	 * scalar path.
+	 * 
+	 * @param first
+	 *            first letter of the input alphabet ('a' or 'A')
+	 * @param shift
+	 *            places to shift, within [0,25]
+	 * @param base
+	 *            first letter of the output alphabet
+	 * @return false if a byte was not a letter of the input alphabet
+	 */
+	private static boolean shiftBytes(final byte[] src, final int off,
+			final int len, final byte[] dst, final int dstOff,
+			final char first, final int shift, final char base) {
+		int done = 0;
+		if (vectorEnabled) {
+			done = ShiftVectors.shift(src, off, len, dst, dstOff, first,
+					shift, base);
+			if (done < 0) {
+				return false;
+			}
+		}
+
+		final long firstLanes = first * LANES;
+		final long endLanes = (first + ALPHABET_SIZE) * LANES;
+		final long shiftLanes = shift * LANES;
+		final long baseLanes = base * LANES;
+
+		long invalid = 0;
+		int i = done;
+		for (; i + 8 <= len; i += 8) {
+			final long x = (long) LONG_VIEW.get(src, off + i);
+			invalid |= invalidLanes(x, firstLanes, endLanes);
+			LONG_VIEW.set(dst, dstOff + i,
+					shiftLanes(x, firstLanes, shiftLanes, baseLanes));
+		}
+
+		for (; i < len; i++) {
+			final int v = shiftByte(src[off + i], first, shift, base);
+			if (v < 0) {
+				return false;
+			}
+			dst[dstOff + i] = (byte) v;
+		}
+
+		return invalid == 0;
+	}
+
+	/**
+	 * Shifts the bytes from <code>index</code> to <code>index + len</code> of
+	 * a buffer in place, like {@link #shiftBytes}. Heap buffers are shifted
+	 * through their array; direct buffers a vector or eight bytes at a time
+	 * through a view of the buffer.
+	 */
+	private static boolean shiftBuffer(final ByteBuffer buffer,
+			final int index, final int len, final char first, final int shift,
+			final char base) {
+		if (buffer.hasArray()) {
+			final int off = buffer.arrayOffset() + index;
+			return shiftBytes(buffer.array(), off, len, buffer.array(), off,
+					first, shift, base);
+		}
+
+		int done = 0;
+		if (vectorEnabled) {
+			done = ShiftVectors.shift(buffer, index, len, first, shift, base);
+			if (done < 0) {
+				return false;
+			}
+		}
+
+		final long firstLanes = first * LANES;
+		final long endLanes = (first + ALPHABET_SIZE) * LANES;
+		final long shiftLanes = shift * LANES;
+		final long baseLanes = base * LANES;
+
+		long invalid = 0;
+		int i = index + done;
+		final int end = index + len;
+		for (; i + 8 <= end; i += 8) {
+			final long x = (long) LONG_BUFFER_VIEW.get(buffer, i);
+			invalid |= invalidLanes(x, firstLanes, endLanes);
+			LONG_BUFFER_VIEW.set(buffer, i,
+					shiftLanes(x, firstLanes, shiftLanes, baseLanes));
+		}
+
+		for (; i < end; i++) {
+			final int v = shiftByte(buffer.get(i), first, shift, base);
+			if (v < 0) {
+				return false;
+			}
+			buffer.put(i, (byte) v);
+		}
+
+		return invalid == 0;
+	}
+
+	/**
+	 * Returns a long with the high bit set in every lane of <code>x</code>
+	 * that is not a letter of the alphabet starting at <code>first</code>.
+	 * Every step keeps its lanes within [0,255] so no carry or borrow crosses
+	 * into a neighbour.
+	 */
+	private static long invalidLanes(final long x, final long firstLanes,
+			final long endLanes) {
+		final long high = x | HIGH_BITS;
+
+		// lane high bit clear if x < first, set if x >= first + 26
+		final long fromFirst = high - firstLanes;
+		final long fromEnd = high - endLanes;
+		return (x | ~fromFirst | fromEnd) & HIGH_BITS;
+	}
+
+	/**
+	 * Shifts every lane of <code>x</code>; lanes that are not letters come
+	 * out as garbage, which {@link #invalidLanes} reports.
+	 */
+	private static long shiftLanes(final long x, final long firstLanes,
+			final long shiftLanes, final long baseLanes) {
+		final long fromFirst = (x | HIGH_BITS) - firstLanes;
+
+		// letter index, shifted, then wrapped back below 26
+		long v = (fromFirst & ~HIGH_BITS) + shiftLanes;
+		final long wrap = ((v | HIGH_BITS) - ALPHABET_SIZE * LANES)
+				& HIGH_BITS;
+		v -= (wrap >>> 7) * ALPHABET_SIZE;
+
+		return v + baseLanes;
+	}
+
+	/**
+	 * Shifts a single byte, returning -1 if it is not a letter.
+	 */
+	private static int shiftByte(final byte b, final char first,
+			final int shift, final char base) {
+		int v = b - first;
+		if (v < 0 || v >= ALPHABET_SIZE) {
+			return -1;
 		}
+		v += shift;
+		if (v >= ALPHABET_SIZE) {
+			v -= ALPHABET_SIZE;
+		}
+		return v + base;
+	}
+
+	/**
+	 * Turns the bulk path for long String messages on or off. It is on by
+	 * default; start the JVM with <code>-Dcryptotools.shift.bulk=false</code>
+	 * to begin with the table path instead.
+	 */
+	public static void setBulkEnabled(final boolean enabled) {
+		bulkEnabled = enabled;
+	}
+
+	public static boolean isBulkEnabled() {
+		return bulkEnabled;
+	}
+
+	/**
+	 * Returns true if the bulk paths can run on the Vector API: the JVM was
+	 * started with <code>--add-modules jdk.incubator.vector</code> and the
+	 * CPU has SIMD registers of at least 128 bits.
+	 */
+	public static boolean isVectorSupported() {
+		return VECTOR_SUPPORTED;
+	}
+
+	/**
+	 * Turns the Vector API kernels of the bulk paths on or off. They are on
+	 * by default wherever {@link #isVectorSupported()}; start the JVM with
+	 * <code>-Dcryptotools.shift.vector=false</code> to begin with the
+	 * eight-byte path instead. Has no effect where they are not supported.
+	 */
+	public static void setVectorEnabled(final boolean enabled) {
+		vectorEnabled = enabled && VECTOR_SUPPORTED;
+	}
+
+	public static boolean isVectorEnabled() {
+		return vectorEnabled;
+	}
 
-		// decrypt ciphertext
-		final StringBuilder plaintextBuilder = new StringBuilder();
-		final char[] cipherChars = ciphertext.toCharArray();
-		for (char cipherChar : cipherChars) {
-			Character plainChar = decryptHashMap.get(cipherChar);
-			plaintextBuilder.append(plainChar);
+	private static boolean checkVectorSupport() {
+		// ShiftVectors cannot even be loaded without the module
+		if (!ModuleLayer.boot().findModule("jdk.incubator.vector")
+				.isPresent()) {
+			return false;
 		}
-		return plaintextBuilder.toString();
+		try {
+			return ShiftVectors.isSupported();
+		} catch (LinkageError e) {
+			return false;
+		}
+	}
+
+	public CipherTransform newEncryptor() {
+		return new CipherTransform() {
+			public void update(final CharBuffer in, final CharBuffer out) {
+				while (in.hasRemaining() && out.hasRemaining()) {
+					char c = in.get();
+					if (c >= 'A' && c <= 'Z') {
+						c += 'a' - 'A';
+					}
+					if (c >= 'a' && c <= 'z') {
+						out.put(encryptTable[c - 'a']);
+					}
+				}
+			}
+
+			public void finish(final CharBuffer out) {
+				// no state is carried between characters
+			}
+
+			public void update(final ByteBuffer in, final ByteBuffer out) {
+				while (in.hasRemaining() && out.hasRemaining()) {
+					final int index = (in.get() | 0x20) - 'a';
+					if (index >= 0 && index < ALPHABET_SIZE) {
+						out.put((byte) encryptTable[index]);
+					}
+				}
+			}
+
+			public void finish(final ByteBuffer out) {
+				// no state is carried between characters
+			}
+		};
+	}
+
+	public CipherTransform newDecryptor() {
+		return new CipherTransform() {
+			public void update(final CharBuffer in, final CharBuffer out) {
+				while (in.hasRemaining() && out.hasRemaining()) {
+					final int index = in.get() - 'A';
+					if (index < 0 || index >= ALPHABET_SIZE) {
+						throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+					}
+					out.put(decryptTable[index]);
+				}
+			}
+
+			public void finish(final CharBuffer out) {
+				// no state is carried between characters
+			}
+
+			public void update(final ByteBuffer in, final ByteBuffer out) {
+				// strict input keeps the length, so whole runs are copied
+				// across and shifted eight bytes at a time
+				final int count = Math.min(in.remaining(), out.remaining());
+				final int start = out.position();
+				final ByteBuffer run = in.duplicate();
+				run.limit(run.position() + count);
+				out.put(run);
+				if (!shiftBuffer(out, start, count, 'A', ALPHABET_SIZE - key,
+						'a')) {
+					throw new IllegalArgumentException(CIPHERTEXT_ERROR);
+				}
+				in.position(in.position() + count);
+			}
+
+			public void finish(final ByteBuffer out) {
+				// no state is carried between characters
+			}
+		};
 	}
 
 	public static void main(String[] args) {
@@ -32,10 +32,6 @@ public class ShiftCipherApplet extends JApplet {
 
 	private JButton formatButton, encryptButton;
 
-	private int previousKey = -1;
-
-	private ShiftCipher shiftCipher;
-
 	private Container contentPane;
 
 	private static final Pattern PLAINTEXT_PATTERN = Pattern.compile("[a-z]+");
@@ -52,16 +48,11 @@ public class ShiftCipherApplet extends JApplet {
 
 				String plaintext = plainTextArea.getText();
 
-				// initialize shift cipher if necessary
-				if (key != previousKey) {
-					// no need to recreate if key is same as before
-					shiftCipher = new ShiftCipher(key);
-				}
+				// shared instance, so nothing is rebuilt per click
+				ShiftCipher shiftCipher = CipherFactory.getShiftCipher(key);
+
 				// format plaintext
 				plainTextArea.setText(shiftCipher.formatPlaintext(plaintext));
-
-				// update previousKey
-				previousKey = key;
 			}
 		}
 	}
@@ -86,15 +77,9 @@ public class ShiftCipherApplet extends JApplet {
 				} else {
 					// everything is okay
 					String plaintext = plainTextArea.getText();
-					if (key != previousKey) {
-						// no need to recreate if key is same as before
-						shiftCipher = new ShiftCipher(key);
-					}
+					ShiftCipher shiftCipher = CipherFactory.getShiftCipher(key);
 					String ciphertext = shiftCipher.encrypt(plaintext);
 					cipherTextArea.setText(ciphertext);
-
-					// update previousKey
-					previousKey = key;
 				}
 			}
 		}
@@ -0,0 +1,193 @@
+package cryptotools;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Recovers the key of a {@link ShiftCipher} from ciphertext alone. The
+ * ciphertext is reduced to a 26-bin letter histogram in one pass; each
+ * candidate key then rotates that histogram back onto the plaintext alphabet
+ * and is scored against English letter frequencies with the chi-squared
+ * statistic. Ranking all 26 keys costs O(n + 26 * 26) instead of decrypting
+ * the message 26 times.
+ * <p>
+ * Text can be added in any number of pieces, including from streams, so
+ * captures of any size are analysed in constant memory. Letters of either
+ * case count; everything else is ignored. Not thread-safe.
+ */
+public class ShiftCipherCracker {
+
+	private static final int ALPHABET_SIZE = 26;
+
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Relative frequencies of 'a' to 'z' in English text.
+	 */
+	private static final double[] ENGLISH_FREQUENCIES = { 0.08167, 0.01492,
+			0.02782, 0.04253, 0.12702, 0.02228, 0.02015, 0.06094, 0.06966,
+			0.00153, 0.00772, 0.04025, 0.02406, 0.06749, 0.07507, 0.01929,
+			0.00095, 0.05987, 0.06327, 0.09056, 0.02758, 0.00978, 0.02360,
+			0.00150, 0.01974, 0.00074 };
+
+	/**
+	 * A key with its chi-squared score (lower fits English better) and its
+	 * share of the likelihood over all 26 keys.
+	 */
+	public static class KeyScore {
+		final int key;
+		final double chiSquared, confidence;
+
+		public KeyScore(final int key, final double chiSquared,
+				final double confidence) {
+			this.key = key;
+			this.chiSquared = chiSquared;
+			this.confidence = confidence;
+		}
+
+		public int getKey() {
+			return key;
+		}
+
+		public double getChiSquared() {
+			return chiSquared;
+		}
+
+		public double getConfidence() {
+			return confidence;
+		}
+
+		public String toString() {
+			return key + " (chi2=" + String.format("%.1f", chiSquared)
+					+ ", p=" + String.format("%.3f", confidence) + ")";
+		}
+	}
+
+	private final long[] counts = new long[ALPHABET_SIZE];
+
+	private long total;
+
+	public void update(final char[] text, final int off, final int len) {
+		for (int i = off; i < off + len; i++) {
+			count(text[i]);
+		}
+	}
+
+	public void update(final CharSequence text) {
+		for (int i = 0; i < text.length(); i++) {
+			count(text.charAt(i));
+		}
+	}
+
+	/**
+	 * Adds ASCII bytes.
+	 */
+	public void update(final byte[] text, final int off, final int len) {
+		for (int i = off; i < off + len; i++) {
+			count((char) (text[i] & 0xff));
+		}
+	}
+
+	/**
+	 * Adds everything <code>in</code> produces; the reader is not closed.
+	 */
+	public void update(final Reader in) throws IOException {
+		final char[] buffer = new char[BUFFER_SIZE];
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			update(buffer, 0, count);
+		}
+	}
+
+	/**
+	 * Adds everything <code>in</code> produces as ASCII; the stream is not
+	 * closed.
+	 */
+	public void update(final InputStream in) throws IOException {
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		int count;
+		while ((count = in.read(buffer)) != -1) {
+			update(buffer, 0, count);
+		}
+	}
+
+	private void count(final char c) {
+		// fold uppercase onto lowercase, then keep only letters
+		final int index = (c | 0x20) - 'a';
+		if (index >= 0 && index < ALPHABET_SIZE && c <= 'z') {
+			counts[index]++;
+			total++;
+		}
+	}
+
+	/**
+	 * Returns the number of letters counted so far.
+	 */
+	public long getLetterCount() {
+		return total;
+	}
+
+	/**
+	 * Scores every key against the letters counted so far and returns them
+	 * best first. Confidence is each key's weight exp(-chi2 / 2) as a share
+	 * of the total over all keys. With no letters counted every key scores
+	 * 0 and gets an equal share.
+	 */
+	public KeyScore[] rank() {
+		final double[] chiSquared = new double[ALPHABET_SIZE];
+		double best = Double.POSITIVE_INFINITY;
+		for (int key = 0; key < ALPHABET_SIZE; key++) {
+			// plaintext letter p was encrypted to p + key
+			double sum = 0;
+			for (int p = 0; p < ALPHABET_SIZE && total > 0; p++) {
+				final double expected = total * ENGLISH_FREQUENCIES[p];
+				final double difference = counts[(p + key) % ALPHABET_SIZE]
+						- expected;
+				sum += difference * difference / expected;
+			}
+			chiSquared[key] = sum;
+			best = Math.min(best, sum);
+		}
+
+		// weights relative to the best key, so exp never underflows to 0
+		double weightSum = 0;
+		final double[] weights = new double[ALPHABET_SIZE];
+		for (int key = 0; key < ALPHABET_SIZE; key++) {
+			weights[key] = Math.exp((best - chiSquared[key]) / 2);
+			weightSum += weights[key];
+		}
+
+		final KeyScore[] scores = new KeyScore[ALPHABET_SIZE];
+		for (int key = 0; key < ALPHABET_SIZE; key++) {
+			scores[key] = new KeyScore(key, chiSquared[key], weights[key]
+					/ weightSum);
+		}
+		Arrays.sort(scores, new Comparator<KeyScore>() {
+			public int compare(final KeyScore a, final KeyScore b) {
+				return Double.compare(a.chiSquared, b.chiSquared);
+			}
+		});
+		return scores;
+	}
+
+	/**
+	 * Ranks the keys for a single ciphertext.
+	 */
+	public static KeyScore[] crack(final CharSequence ciphertext) {
+		final ShiftCipherCracker cracker = new ShiftCipherCracker();
+		cracker.update(ciphertext);
+		return cracker.rank();
+	}
+
+	public static void main(String[] args) {
+		ShiftCipher sc = new ShiftCipher(11);
+		String ciphertext = sc.encrypt(sc.formatPlaintext("It was the best "
+				+ "of times, it was the worst of times, it was the age of "
+				+ "wisdom, it was the age of foolishness"));
+		KeyScore[] scores = ShiftCipherCracker.crack(ciphertext);
+		System.out.println(scores[0] + ", " + scores[1]);
+	}
+}
@@ -3,20 +3,33 @@ package cryptotools;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.SpringLayout;
+import javax.swing.SwingWorker;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.Segment;
 
 public class ShiftCipherSwing extends JPanel {
 
@@ -34,15 +47,122 @@ public class ShiftCipherSwing extends JPanel {
 
 	private JButton formatButton, encryptButton;
 
-	private int previousKey = -1;
+	private JButton cancelButton;
 
-	private ShiftCipher shiftCipher;
+	private JProgressBar progressBar;
 
-	private static final Pattern PLAINTEXT_PATTERN = Pattern.compile("[a-z]+");
+	private JCheckBox liveCheckBox;
+
+	private final LiveEncrypter liveEncrypter = new LiveEncrypter();
+
+	// the worker running now, if any
+	private CipherWorker worker;
+
+	/**
+	 * Characters handled per step of a worker; each step publishes its
+	 * output and checks for cancellation.
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/**
+	 * Formats or encrypts a snapshot of the plaintext off the Event Dispatch
+	 * Thread, one chunk at a time. The shift cipher maps each character on
+	 * its own, so chunks are independent. Each chunk's output is appended to
+	 * <code>target</code> on the Event Dispatch Thread as soon as it is
+	 * ready.
+	 */
+	private class CipherWorker extends SwingWorker<Void, String> {
+		private final String text;
+
+		private final ShiftCipher shiftCipher;
+
+		private final boolean format;
+
+		private final Document target;
+
+		// finished chunks not yet in the document; done() drains it too,
+		// since it may run before the last process() call
+		private final Queue<String> pending = new ConcurrentLinkedQueue<String>();
+
+		CipherWorker(final String text, final ShiftCipher shiftCipher,
+				final boolean format, final Document target) {
+			this.text = text;
+			this.shiftCipher = shiftCipher;
+			this.format = format;
+			this.target = target;
+		}
+
+		protected Void doInBackground() {
+			for (int start = 0; start < text.length() && !isCancelled(); start += CHUNK_SIZE) {
+				final String chunk = text.substring(start,
+						Math.min(start + CHUNK_SIZE, text.length()));
+				// encrypt throws on anything outside [a-z], ending the work
+				final String output = format ? shiftCipher
+						.formatPlaintext(chunk) : shiftCipher.encrypt(chunk);
+				pending.add(output);
+				publish(output);
+				setProgress((int) ((long) (start + chunk.length()) * 100 / text
+						.length()));
+			}
+			return null;
+		}
+
+		protected void process(final List<String> chunks) {
+			if (worker == this && !isCancelled()) {
+				appendPending();
+			}
+		}
+
+		private void appendPending() {
+			String chunk;
+			while ((chunk = pending.poll()) != null) {
+				try {
+					target.insertString(target.getLength(), chunk, null);
+				} catch (BadLocationException e) {
+					// the end of the document is always a valid location
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+
+		protected void done() {
+			if (!isCancelled()) {
+				appendPending();
+			}
+			// later process() calls are ignored from here on
+			worker = null;
+			setRunning(false);
+			if (isCancelled()) {
+				return;
+			}
+			try {
+				get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				if (!(e.getCause() instanceof IllegalArgumentException)) {
+					throw new IllegalStateException(e.getCause());
+				}
+				if (!format) {
+					cipherTextArea.setText("");
+				}
+				JOptionPane.showMessageDialog(null,
+						"Plaintext format invalid. Please format.", "Error",
+						JOptionPane.ERROR_MESSAGE);
+				return;
+			}
+			if (format) {
+				// swap the formatted text in whole, so a cancelled run
+				// leaves the plaintext untouched
+				plainTextArea.setDocument(target);
+			}
+		}
+	}
 
 	private class PlaintextFormatter implements ActionListener {
 		public void actionPerformed(ActionEvent e) {
-			if (plainTextArea.getText().compareTo("") == 0) {
+			if (plainTextArea.getDocument().getLength() == 0) {
 				JOptionPane.showMessageDialog(null,
 						"Enter a plaintext message.", "Error",
 						JOptionPane.ERROR_MESSAGE);
@@ -50,18 +170,12 @@ public class ShiftCipherSwing extends JPanel {
 				// everything is okay
 				int key = keyList.getSelectedIndex();
 
-				String plaintext = plainTextArea.getText();
-
-				// initialize shift cipher if necessary
-				if (key != previousKey) {
-					// no need to recreate if key is same as before
-					shiftCipher = new ShiftCipher(key);
-				}
-				// format plaintext
-				plainTextArea.setText(shiftCipher.formatPlaintext(plaintext));
+				// shared instance, so nothing is rebuilt per click
+				ShiftCipher shiftCipher = CipherFactory.getShiftCipher(key);
 
-				// update previousKey
-				previousKey = key;
+				// format plaintext in the background
+				start(new CipherWorker(plainTextArea.getText(), shiftCipher,
+						true, new PlainDocument()));
 			}
 		}
 	}
@@ -69,35 +183,132 @@ public class ShiftCipherSwing extends JPanel {
 	private class Encrypter implements ActionListener {
 		public void actionPerformed(ActionEvent e) {
 			// check for blank fields
-			if (plainTextArea.getText().compareTo("") == 0) {
+			if (plainTextArea.getDocument().getLength() == 0) {
 				JOptionPane.showMessageDialog(null,
 						"Enter a plaintext message.", "Error",
 						JOptionPane.ERROR_MESSAGE);
 			} else {
+				// everything is okay; bad input is reported by the worker
 				int key = keyList.getSelectedIndex();
+				ShiftCipher shiftCipher = CipherFactory.getShiftCipher(key);
+				cipherTextArea.setText("");
+				start(new CipherWorker(plainTextArea.getText(), shiftCipher,
+						false, cipherTextArea.getDocument()));
+			}
+		}
+	}
 
-				// check plaintext for bad input
-				Matcher plaintextMatcher = PLAINTEXT_PATTERN
-						.matcher(plainTextArea.getText());
-				if (!plaintextMatcher.matches()) {
-					JOptionPane.showMessageDialog(null,
-							"Plaintext format invalid. Please format.",
-							"Error", JOptionPane.ERROR_MESSAGE);
-				} else {
-					// everything is okay
-					String plaintext = plainTextArea.getText();
-					if (key != previousKey) {
-						// no need to recreate if key is same as before
-						shiftCipher = new ShiftCipher(key);
-					}
-					String ciphertext = shiftCipher.encrypt(plaintext);
-					cipherTextArea.setText(ciphertext);
+	/**
+	 * Keeps a preview of the ciphertext in step with the plaintext while live
+	 * mode is on. The shift cipher maps each character on its own, so an edit
+	 * is patched into the ciphertext at the same offset: inserted text is
+	 * encrypted and inserted, removed text is removed. Each keystroke costs
+	 * the same whatever the size of the document.
+	 */
+	private class LiveEncrypter implements DocumentListener {
+		public void insertUpdate(DocumentEvent e) {
+			if (liveCheckBox.isSelected()) {
+				insertPreview(e.getOffset(), e.getLength());
+			}
+		}
 
-					// update previousKey
-					previousKey = key;
+		public void removeUpdate(DocumentEvent e) {
+			if (liveCheckBox.isSelected()) {
+				try {
+					cipherTextArea.getDocument().remove(e.getOffset(),
+							e.getLength());
+				} catch (BadLocationException ex) {
+					// the preview is as long as the plaintext
+					throw new IllegalStateException(ex);
 				}
 			}
 		}
+
+		public void changedUpdate(DocumentEvent e) {
+			// attribute changes leave the text alone
+		}
+	}
+
+	private class LiveToggler implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			encryptButton.setEnabled(!liveCheckBox.isSelected());
+			if (liveCheckBox.isSelected()) {
+				previewAll();
+			}
+		}
+	}
+
+	private class KeyChanger implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			// every character depends on the key
+			if (liveCheckBox.isSelected()) {
+				previewAll();
+			}
+		}
+	}
+
+	/**
+	 * Rebuilds the whole ciphertext preview from the plaintext.
+	 */
+	private void previewAll() {
+		cipherTextArea.setText("");
+		insertPreview(0, plainTextArea.getDocument().getLength());
+	}
+
+	/**
+	 * Encrypts <code>length</code> plaintext characters at
+	 * <code>offset</code> and inserts them at the same offset of the
+	 * ciphertext.
+	 */
+	private void insertPreview(final int offset, final int length) {
+		final ShiftCipher shiftCipher = CipherFactory.getShiftCipher(keyList
+				.getSelectedIndex());
+		final Segment segment = new Segment();
+		try {
+			plainTextArea.getDocument().getText(offset, length, segment);
+			final char[] preview = new char[length];
+			shiftCipher.encryptLettersInto(segment.array, segment.offset,
+					length, preview, 0);
+			cipherTextArea.getDocument().insertString(offset,
+					new String(preview), null);
+		} catch (BadLocationException e) {
+			// the preview is as long as the plaintext
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private class Canceller implements ActionListener {
+		public void actionPerformed(ActionEvent e) {
+			if (worker != null) {
+				worker.cancel(false);
+			}
+		}
+	}
+
+	private void start(final CipherWorker newWorker) {
+		worker = newWorker;
+		worker.addPropertyChangeListener(new PropertyChangeListener() {
+			public void propertyChange(final PropertyChangeEvent event) {
+				if ("progress".equals(event.getPropertyName())) {
+					progressBar.setValue((Integer) event.getNewValue());
+				}
+			}
+		});
+		setRunning(true);
+		worker.execute();
+	}
+
+	/**
+	 * Locks the inputs while a worker runs and enables cancelling it.
+	 */
+	private void setRunning(final boolean running) {
+		formatButton.setEnabled(!running);
+		encryptButton.setEnabled(!running && !liveCheckBox.isSelected());
+		keyList.setEnabled(!running);
+		liveCheckBox.setEnabled(!running);
+		plainTextArea.setEditable(!running);
+		cancelButton.setEnabled(running);
+		progressBar.setValue(0);
 	}
 
 	public ShiftCipherSwing() {
@@ -116,6 +327,7 @@ public class ShiftCipherSwing extends JPanel {
 		}
 		keyList = new JComboBox<Integer>(keys);
 		keyList.setSelectedIndex(0);
+		keyList.addActionListener(new KeyChanger());
 		add(keyLabel);
 		add(keyList);
 
@@ -127,6 +339,20 @@ public class ShiftCipherSwing extends JPanel {
 				JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED,
 				JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
 		plainTextArea.setLineWrap(true);
+		plainTextArea.getDocument().addDocumentListener(liveEncrypter);
+		// formatting swaps in a new document; follow it
+		plainTextArea.addPropertyChangeListener("document",
+				new PropertyChangeListener() {
+					public void propertyChange(final PropertyChangeEvent event) {
+						((Document) event.getOldValue())
+								.removeDocumentListener(liveEncrypter);
+						((Document) event.getNewValue())
+								.addDocumentListener(liveEncrypter);
+						if (liveCheckBox.isSelected()) {
+							previewAll();
+						}
+					}
+				});
 		add(plainLabel);
 		add(plainScrollPane);
 
@@ -140,6 +366,20 @@ public class ShiftCipherSwing extends JPanel {
 		add(encryptButton);
 		encryptButton.addActionListener(new Encrypter());
 
+		// cancel button and progress of background work
+		cancelButton = new JButton("Cancel");
+		cancelButton.setEnabled(false);
+		add(cancelButton);
+		cancelButton.addActionListener(new Canceller());
+
+		// live mode encrypts as you type
+		liveCheckBox = new JCheckBox("Live");
+		add(liveCheckBox);
+		liveCheckBox.addActionListener(new LiveToggler());
+
+		progressBar = new JProgressBar(0, 100);
+		add(progressBar);
+
 		// ciphertext
 		cipherLabel = new JLabel("Ciphertext:");
 		cipherTextArea = new JTextArea(5, 30);
@@ -186,6 +426,23 @@ public class ShiftCipherSwing extends JPanel {
 		layout.putConstraint(SpringLayout.WEST, encryptButton, 5,
 				SpringLayout.EAST, formatButton);
 
+		layout.putConstraint(SpringLayout.NORTH, cancelButton, 5,
+				SpringLayout.SOUTH, plainScrollPane);
+		layout.putConstraint(SpringLayout.WEST, cancelButton, 5,
+				SpringLayout.EAST, encryptButton);
+
+		layout.putConstraint(SpringLayout.VERTICAL_CENTER, liveCheckBox, 0,
+				SpringLayout.VERTICAL_CENTER, cancelButton);
+		layout.putConstraint(SpringLayout.WEST, liveCheckBox, 5,
+				SpringLayout.EAST, cancelButton);
+
+		layout.putConstraint(SpringLayout.VERTICAL_CENTER, progressBar, 0,
+				SpringLayout.VERTICAL_CENTER, cancelButton);
+		layout.putConstraint(SpringLayout.WEST, progressBar, 5,
+				SpringLayout.EAST, liveCheckBox);
+		layout.putConstraint(SpringLayout.EAST, progressBar, 0,
+				SpringLayout.EAST, plainScrollPane);
+
 		layout.putConstraint(SpringLayout.WEST, cipherLabel, 5,
 				SpringLayout.WEST, this);
 		layout.putConstraint(SpringLayout.NORTH, cipherLabel, 5,
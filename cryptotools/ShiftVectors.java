@@ -0,0 +1,97 @@
+package cryptotools;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Shift cipher kernels on the incubating Vector API, for the bulk paths of
+ * {@link ShiftCipher}. Each step loads a whole register of ASCII bytes (32
+ * with AVX2, 64 with AVX-512), validates them with one unsigned compare and
+ * wraps the shift past 'z' with a compare and a blend.
+ * <p>
+ * The API lives in the jdk.incubator.vector module, which is only resolved
+ * when the JVM is started with <code>--add-modules
+ * jdk.incubator.vector</code>. ShiftCipher checks for it before touching
+ * this class, and otherwise keeps to its portable path.
+ */
+class ShiftVectors {
+
+	private static final int ALPHABET_SIZE = 26;
+
+	private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+	/**
+	 * Returns true if the CPU has SIMD registers of at least 128 bits. On
+	 * narrower hardware the API falls back to emulating lanes in Java, which
+	 * is slower than the portable path.
+	 */
+	static boolean isSupported() {
+		return SPECIES.vectorBitSize() >= 128;
+	}
+
+	/**
+	 * Shifts the longest run of whole vectors among <code>len</code> bytes of
+	 * <code>src</code> starting at <code>off</code> into <code>dst</code>
+	 * starting at <code>dstOff</code>. The ranges must be the same or must
+	 * not overlap.
+	 *
+	 * @return the number of bytes shifted, which leaves fewer than one
+	 *         vector for the caller, or -1 if a byte was not a letter of the
+	 *         input alphabet; <code>dst</code> may then hold a partial
+	 *         result
+	 */
+	static int shift(final byte[] src, final int off, final int len,
+			final byte[] dst, final int dstOff, final char first,
+			final int shift, final char base) {
+		final int bound = SPECIES.loopBound(len);
+		VectorMask<Byte> invalid = SPECIES.maskAll(false);
+		for (int i = 0; i < bound; i += SPECIES.length()) {
+			final ByteVector index = ByteVector.fromArray(SPECIES, src,
+					off + i).sub((byte) first);
+			invalid = invalid.or(index.compare(VectorOperators.UNSIGNED_GE,
+					(byte) ALPHABET_SIZE));
+			shiftLanes(index, shift, base).intoArray(dst, dstOff + i);
+		}
+		return invalid.anyTrue() ? -1 : bound;
+	}
+
+	/**
+	 * Shifts the longest run of whole vectors among the <code>len</code>
+	 * bytes of <code>buffer</code> from <code>index</code> in place; see
+	 * {@link #shift(byte[], int, int, byte[], int, char, int, char)}.
+	 */
+	static int shift(final ByteBuffer buffer, final int index, final int len,
+			final char first, final int shift, final char base) {
+		final int bound = SPECIES.loopBound(len);
+		VectorMask<Byte> invalid = SPECIES.maskAll(false);
+		for (int i = index; i < index + bound; i += SPECIES.length()) {
+			// byte lanes read the same in either order
+			final ByteVector letters = ByteVector.fromByteBuffer(SPECIES,
+					buffer, i, ByteOrder.nativeOrder()).sub((byte) first);
+			invalid = invalid.or(letters.compare(VectorOperators.UNSIGNED_GE,
+					(byte) ALPHABET_SIZE));
+			shiftLanes(letters, shift, base).intoByteBuffer(buffer, i,
+					ByteOrder.nativeOrder());
+		}
+		return invalid.anyTrue() ? -1 : bound;
+	}
+
+	/**
+	 * Shifts letter indices in [0,25] and maps them onto the output
+	 * alphabet. Lanes that were not letters come out as garbage, which the
+	 * caller's compare reports.
+	 */
+	private static ByteVector shiftLanes(final ByteVector index,
+			final int shift, final char base) {
+		final ByteVector shifted = index.add((byte) shift);
+		final ByteVector wrapped = shifted.blend(shifted
+				.sub((byte) ALPHABET_SIZE), shifted.compare(VectorOperators.GE,
+				(byte) ALPHABET_SIZE));
+		return wrapped.add((byte) base);
+	}
+}
@@ -0,0 +1,231 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the streaming transforms against the one-shot encrypt and decrypt.
+ * Input arrives in chunks of a few characters and the output buffer is cut
+ * to between {@link CipherTransform#MAX_OUTPUT_PER_INPUT} and twice that on
+ * every call, so Playfair's pending letter and digraph cross chunk
+ * boundaries and the transforms keep running out of output room.
+ */
+class CipherStreamsTest {
+
+	private static final int MAX_OUTPUT = CipherTransform.MAX_OUTPUT_PER_INPUT;
+
+	private final Random random = new Random(42);
+
+	private static Cipher[] ciphers() {
+		return new Cipher[] { new PlayfairCipher("playfairexample"),
+				new PlayfairCipher("nancy"), CipherFactory.getShiftCipher(0),
+				CipherFactory.getShiftCipher(3),
+				CipherFactory.getShiftCipher(25) };
+	}
+
+	/**
+	 * Returns ASCII text of mixed case with spaces and punctuation. A small
+	 * alphabet makes Playfair's doubled letters and q's common.
+	 */
+	private String randomText(final int length) {
+		final char[] text = new char[length];
+		for (int i = 0; i < length; i++) {
+			final int kind = random.nextInt(10);
+			if (kind == 0) {
+				text[i] = " ,.!\n?'-09@[`{~".charAt(random.nextInt(15));
+			} else {
+				final char letter = (char) ('m' + random.nextInt(random
+						.nextBoolean() ? 14 : 5));
+				text[i] = kind == 1 ? Character.toUpperCase(letter) : letter;
+			}
+		}
+		return new String(text);
+	}
+
+	/**
+	 * Returns the text as the streams format it: lowercase letters only.
+	 */
+	private static String letters(final String text) {
+		return text.replaceAll("[^A-Za-z]", "").toLowerCase();
+	}
+
+	/**
+	 * Returns what <code>cipher.encrypt</code> gives for the formatted text,
+	 * or "" when nothing is left to encrypt.
+	 */
+	private static String encrypt(final Cipher cipher, final String text) {
+		final String letters = letters(text);
+		if (cipher instanceof PlayfairCipher) {
+			if (((PlayfairCipher) cipher).formatPlaintext(letters).isEmpty()) {
+				return "";
+			}
+		} else if (letters.isEmpty()) {
+			return "";
+		}
+		return cipher.encrypt(letters);
+	}
+
+	private String transformChars(final CipherTransform transform,
+			final String text) {
+		final CharBuffer in = CharBuffer.wrap(text);
+		in.limit(0);
+		final CharBuffer out = CharBuffer.allocate(2 * MAX_OUTPUT);
+		final StringBuilder sb = new StringBuilder();
+		while (in.limit() < text.length()) {
+			in.limit(Math.min(text.length(), in.limit() + random.nextInt(8)));
+			while (in.hasRemaining()) {
+				out.limit(MAX_OUTPUT + random.nextInt(MAX_OUTPUT + 1));
+				transform.update(in, out);
+				out.flip();
+				sb.append(out);
+				out.clear();
+			}
+		}
+		transform.finish(out);
+		out.flip();
+		return sb.append(out).toString();
+	}
+
+	private String transformBytes(final CipherTransform transform,
+			final String text) {
+		final byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+		final ByteBuffer in, out;
+		if (random.nextBoolean()) {
+			in = ByteBuffer.wrap(bytes);
+			out = ByteBuffer.allocate(2 * MAX_OUTPUT);
+		} else {
+			in = ByteBuffer.allocateDirect(bytes.length);
+			in.put(bytes).flip();
+			out = ByteBuffer.allocateDirect(2 * MAX_OUTPUT);
+		}
+		in.limit(0);
+		final StringBuilder sb = new StringBuilder();
+		while (in.limit() < bytes.length) {
+			in.limit(Math.min(bytes.length, in.limit() + random.nextInt(8)));
+			while (in.hasRemaining()) {
+				out.limit(MAX_OUTPUT + random.nextInt(MAX_OUTPUT + 1));
+				transform.update(in, out);
+				drain(out, sb);
+			}
+		}
+		transform.finish(out);
+		drain(out, sb);
+		return sb.toString();
+	}
+
+	private static void drain(final ByteBuffer out, final StringBuilder sb) {
+		out.flip();
+		while (out.hasRemaining()) {
+			sb.append((char) out.get());
+		}
+		out.clear();
+	}
+
+	@Test
+	void encryptorsMatchEncrypt() {
+		for (final Cipher cipher : ciphers()) {
+			for (int length = 0; length < 200; length++) {
+				final String text = randomText(length);
+				final String expected = encrypt(cipher, text);
+				assertEquals(expected, transformChars(cipher.newEncryptor(),
+						text), text);
+				assertEquals(expected, transformBytes(cipher.newEncryptor(),
+						text), text);
+			}
+		}
+	}
+
+	@Test
+	void decryptorsMatchDecrypt() {
+		for (final Cipher cipher : ciphers()) {
+			for (int length = 1; length < 200; length++) {
+				final String ciphertext = encrypt(cipher, randomText(length));
+				if (ciphertext.isEmpty()) {
+					continue;
+				}
+				final String expected = cipher.decrypt(ciphertext);
+				assertEquals(expected, transformChars(cipher.newDecryptor(),
+						ciphertext), ciphertext);
+				assertEquals(expected, transformBytes(cipher.newDecryptor(),
+						ciphertext), ciphertext);
+			}
+		}
+	}
+
+	@Test
+	void decryptorsRejectInvalidCiphertext() {
+		for (final Cipher cipher : ciphers()) {
+			final String ciphertext = encrypt(cipher, randomText(100));
+			final String lowercase = ciphertext.substring(0, 50) + "a"
+					+ ciphertext.substring(50);
+			for (final String invalid : new String[] { lowercase,
+					ciphertext + " ", "?" + ciphertext }) {
+				try {
+					transformChars(cipher.newDecryptor(), invalid);
+					fail("decrypted " + invalid);
+				} catch (IllegalArgumentException expected) {
+				}
+				try {
+					transformBytes(cipher.newDecryptor(), invalid);
+					fail("decrypted bytes " + invalid);
+				} catch (IllegalArgumentException expected) {
+				}
+			}
+		}
+
+		// an odd Playfair ciphertext is only known to be odd at the end
+		final Cipher playfair = new PlayfairCipher("nancy");
+		final String odd = playfair.encrypt(letters(randomText(100))) + "A";
+		try {
+			transformChars(playfair.newDecryptor(), odd);
+			fail("decrypted odd-length ciphertext");
+		} catch (IllegalArgumentException expected) {
+		}
+		try {
+			transformBytes(playfair.newDecryptor(), odd);
+			fail("decrypted odd-length ciphertext bytes");
+		} catch (IllegalArgumentException expected) {
+		}
+	}
+
+	/**
+	 * Runs text longer than the streams' buffers through the Reader and
+	 * InputStream entry points and back.
+	 */
+	@Test
+	void streamsRoundTrip() throws IOException {
+		final String text = randomText(50000);
+		for (final Cipher cipher : ciphers()) {
+			final String expected = encrypt(cipher, text);
+
+			final StringWriter encrypted = new StringWriter();
+			CipherStreams.encrypt(cipher, new StringReader(text), encrypted);
+			assertEquals(expected, encrypted.toString());
+			final StringWriter decrypted = new StringWriter();
+			CipherStreams.decrypt(cipher, new StringReader(expected),
+					decrypted);
+			assertEquals(cipher.decrypt(expected), decrypted.toString());
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			CipherStreams.encrypt(cipher, new ByteArrayInputStream(text
+					.getBytes(StandardCharsets.US_ASCII)), out);
+			assertEquals(expected, out.toString("US-ASCII"));
+			out.reset();
+			CipherStreams.decrypt(cipher, new ByteArrayInputStream(expected
+					.getBytes(StandardCharsets.US_ASCII)), out);
+			assertEquals(cipher.decrypt(expected), out.toString("US-ASCII"));
+		}
+	}
+}
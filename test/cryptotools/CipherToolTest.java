@@ -0,0 +1,143 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks CipherTool's file handling: outputs match the cipher's own result,
+ * and failed or refused runs leave nothing behind.
+ */
+class CipherToolTest {
+
+	private static final String TEXT = "Attack at dawn, hold the east gate!\n";
+
+	private final Cipher cipher = CipherFactory.getShiftCipher(3);
+
+	@TempDir
+	Path dir;
+
+	private static void write(final Path file, final String text)
+			throws IOException {
+		Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static String read(final Path file) throws IOException {
+		return new String(Files.readAllBytes(file), StandardCharsets.US_ASCII);
+	}
+
+	private String encrypted(final String text) {
+		return cipher.encrypt(text.replaceAll("[^A-Za-z]", "").toLowerCase());
+	}
+
+	private void transformAll(final boolean encrypt, final Path input,
+			final Path output) throws IOException {
+		for (Path[] file : CipherTool.listFiles(input, output)) {
+			CipherTool.transformFile(cipher, encrypt, file[0], file[1]);
+		}
+	}
+
+	private long countFiles(final Path root) throws IOException {
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.count();
+		}
+	}
+
+	@Test
+	void singleFile() throws IOException {
+		final Path input = dir.resolve("plain.txt");
+		final Path output = dir.resolve("cipher.txt");
+		final Path decrypted = dir.resolve("decrypted.txt");
+		write(input, TEXT);
+		transformAll(true, input, output);
+		assertEquals(encrypted(TEXT), read(output));
+		transformAll(false, output, decrypted);
+		assertEquals(cipher.decrypt(encrypted(TEXT)), read(decrypted));
+		assertEquals(4, countFiles(dir));
+	}
+
+	@Test
+	void directoryTree() throws IOException {
+		final Path input = dir.resolve("in");
+		final Path output = dir.resolve("out");
+		Files.createDirectories(input.resolve("a/b"));
+		Files.createDirectories(input.resolve("empty"));
+		write(input.resolve("top.txt"), TEXT);
+		write(input.resolve("a/b/deep.txt"), "Deep " + TEXT);
+		transformAll(true, input, output);
+		assertEquals(encrypted(TEXT), read(output.resolve("top.txt")));
+		assertEquals(encrypted("Deep " + TEXT),
+				read(output.resolve("a/b/deep.txt")));
+		assertEquals(countFiles(input), countFiles(output));
+	}
+
+	@Test
+	void failureKeepsExistingOutput() throws IOException {
+		final Path input = dir.resolve("bad.txt");
+		final Path output = dir.resolve("out.txt");
+		write(input, encrypted(TEXT) + "?" + encrypted(TEXT));
+		write(output, "previous");
+		try {
+			transformAll(false, input, output);
+			fail("invalid ciphertext accepted");
+		} catch (IllegalArgumentException expected) {
+		}
+		assertEquals("previous", read(output));
+		assertEquals(3, countFiles(dir));
+
+		// an I/O error takes the same path as invalid input
+		try {
+			transformAll(true, dir.resolve("missing.txt"), output);
+			fail("missing input accepted");
+		} catch (IOException expected) {
+		}
+		assertEquals("previous", read(output));
+		assertEquals(3, countFiles(dir));
+	}
+
+	@Test
+	void outputIsInput() throws IOException {
+		final Path file = dir.resolve("text.txt");
+		write(file, TEXT);
+		transformAll(true, file, file);
+		assertEquals(encrypted(TEXT), read(file));
+		assertEquals(2, countFiles(dir));
+
+		final Path tree = dir.resolve("tree");
+		Files.createDirectories(tree.resolve("sub"));
+		write(tree.resolve("sub/text.txt"), TEXT);
+		transformAll(true, tree, tree);
+		assertEquals(encrypted(TEXT), read(tree.resolve("sub/text.txt")));
+		assertEquals(3, countFiles(tree));
+	}
+
+	@Test
+	void rejectsOutputInsideInput() throws IOException {
+		final Path input = dir.resolve("in");
+		Files.createDirectories(input);
+		write(input.resolve("text.txt"), TEXT);
+		for (String output : new String[] { "in/out", "in/./out/deeper",
+				"in/../in/out" }) {
+			try {
+				CipherTool.listFiles(input, dir.resolve(output));
+				fail(output + " accepted");
+			} catch (IllegalArgumentException expected) {
+			}
+		}
+		assertEquals(2, countFiles(input));
+		final List<Path[]> files = CipherTool.listFiles(input,
+				dir.resolve("inside"));
+		assertEquals(1, files.size());
+		assertFalse(Files.exists(input.resolve("inside")));
+	}
+}
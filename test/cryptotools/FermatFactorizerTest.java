@@ -0,0 +1,80 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that Fermat's method finds the divisor pair closest to sqrt(n).
+ */
+class FermatFactorizerTest {
+
+	private final Random random = new Random(42);
+
+	/**
+	 * Returns the largest divisor of odd n that is at most sqrt(n), or 2 for
+	 * even n.
+	 */
+	private static long expectedSmallFactor(final long n) {
+		if (n % 2 == 0) {
+			return 2;
+		}
+		long best = 1;
+		for (long d = 1; d * d <= n; d++) {
+			if (n % d == 0) {
+				best = d;
+			}
+		}
+		return best;
+	}
+
+	@Test
+	void smallNumbers() {
+		for (int n = 2; n < 20000; n++) {
+			final FermatFactor factor = FermatFactorizer.factor(n);
+			final long x = expectedSmallFactor(n);
+			assertEquals(x, factor.getX(), "x of " + n);
+			assertEquals(n / x, factor.getY(), "y of " + n);
+			final FermatFactor longFactor = FermatFactorizer.factor((long) n);
+			assertEquals(x, longFactor.getLongX());
+			assertEquals(n / x, longFactor.getLongY());
+		}
+	}
+
+	@Test
+	void semiprimes() {
+		for (int i = 0; i < 50; i++) {
+			// balanced 62-bit semiprimes, found near sqrt(n)
+			final long p = BigInteger.probablePrime(31, random).longValue();
+			final long q = BigInteger.valueOf(p + random.nextInt(100000))
+					.nextProbablePrime().longValue();
+			final FermatFactor factor = FermatFactorizer.factor(p * q);
+			assertEquals(p, factor.getLongX());
+			assertEquals(q, factor.getLongY());
+			final FermatFactor parallel = FermatFactorizer
+					.factorParallel(p * q);
+			assertEquals(p, parallel.getLongX());
+		}
+		final long prime = BigInteger.probablePrime(62, random).longValue();
+		assertEquals(1, FermatFactorizer.factor(prime).getLongX());
+	}
+
+	@Test
+	void bigSemiprimes() {
+		for (int i = 0; i < 10; i++) {
+			final BigInteger p = BigInteger.probablePrime(128, random);
+			final BigInteger q = p.add(
+					new BigInteger(60, random).shiftLeft(4))
+					.nextProbablePrime();
+			final BigInteger[] factor = FermatFactorizer.factor(p.multiply(q));
+			assertEquals(p, factor[0]);
+			assertEquals(q, factor[1]);
+			assertEquals(p, FermatFactorizer.factorParallel(p.multiply(q))[0]);
+		}
+		final BigInteger prime = BigInteger.probablePrime(100, random);
+		assertEquals(BigInteger.ONE, FermatFactorizer.factor(prime)[0]);
+	}
+}
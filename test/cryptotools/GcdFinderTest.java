@@ -0,0 +1,202 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks gcds, Bezout coefficients and inverses against {@link BigInteger}.
+ */
+class GcdFinderTest {
+
+	private final Random random = new Random(42);
+
+	private static BigInteger big(final long value) {
+		return BigInteger.valueOf(value);
+	}
+
+	/**
+	 * Returns a random long with a random bit length, so small and large
+	 * operands and their mixtures all come up.
+	 */
+	private long randomLong() {
+		return random.nextLong() >> random.nextInt(64);
+	}
+
+	@Test
+	void computeGcdInt() {
+		for (int i = 0; i < 100000; i++) {
+			final int a = (int) randomLong(), b = (int) randomLong();
+			assertEquals(big(a).gcd(big(b)).intValue(),
+					GcdFinder.computeGcd(a, b));
+		}
+		assertEquals(0, GcdFinder.computeGcd(0, 0));
+		assertEquals(7, GcdFinder.computeGcd(-7, 0));
+		assertEquals(Integer.MIN_VALUE, GcdFinder.computeGcd(
+				Integer.MIN_VALUE, 0));
+	}
+
+	@Test
+	void computeGcdLong() {
+		for (int i = 0; i < 100000; i++) {
+			final long a = randomLong(), b = randomLong();
+			assertEquals(big(a).gcd(big(b)).longValue(),
+					GcdFinder.computeGcd(a, b));
+		}
+		assertEquals(Long.MIN_VALUE, GcdFinder.computeGcd(Long.MIN_VALUE,
+				Long.MIN_VALUE));
+	}
+
+	@Test
+	void computeGcdBig() {
+		for (int i = 0; i < 2000; i++) {
+			// a shared factor makes the gcd interesting
+			final BigInteger common = new BigInteger(random.nextInt(200),
+					random);
+			final BigInteger a = new BigInteger(random.nextInt(2000), random)
+					.multiply(common);
+			final BigInteger b = new BigInteger(random.nextInt(2000), random)
+					.multiply(common);
+			final BigInteger signedA = random.nextBoolean() ? a : a.negate();
+			assertEquals(signedA.gcd(b), GcdFinder.computeGcd(signedA, b));
+		}
+	}
+
+	@Test
+	void computeExtendedGcdLong() {
+		for (int i = 0; i < 100000; i++) {
+			final long a = randomLong(), b = randomLong();
+			final ExtendedGcd gcd = GcdFinder.computeExtendedGcd(a, b);
+			assertEquals(big(a).gcd(big(b)).longValue(), gcd.getLongGcd());
+			assertEquals(big(gcd.getLongGcd()), big(a).multiply(
+					big(gcd.getLongX())).add(big(b).multiply(
+					big(gcd.getLongY()))));
+		}
+		final ExtendedGcd gcd = GcdFinder.computeExtendedGcd(
+				Integer.MIN_VALUE, 6);
+		assertEquals(2, gcd.getGcd());
+		assertEquals(2, Integer.MIN_VALUE * gcd.getX() + 6 * gcd.getY());
+	}
+
+	@Test
+	void computeExtendedGcdBig() {
+		for (int i = 0; i < 2000; i++) {
+			final BigInteger common = new BigInteger(random.nextInt(100),
+					random);
+			final BigInteger a = new BigInteger(random.nextInt(2000), random)
+					.multiply(common);
+			final BigInteger b = new BigInteger(random.nextInt(2000), random)
+					.multiply(common);
+			final BigInteger[] gcd = GcdFinder.computeExtendedGcd(a, b);
+			assertEquals(a.gcd(b), gcd[0]);
+			assertEquals(gcd[0], a.multiply(gcd[1]).add(b.multiply(gcd[2])));
+		}
+	}
+
+	@Test
+	void modInverseLong() {
+		for (int i = 0; i < 100000; i++) {
+			final long m = 1 + (random.nextLong() >>> (1 + random.nextInt(62)));
+			final long a = randomLong();
+			if (!big(a).gcd(big(m)).equals(BigInteger.ONE)) {
+				continue;
+			}
+			assertEquals(big(a).modInverse(big(m)).longValue(),
+					GcdFinder.modInverse(a, m));
+		}
+		try {
+			GcdFinder.modInverse(6L, 9L);
+			fail("6 has no inverse mod 9");
+		} catch (ArithmeticException expected) {
+			// gcd is 3
+		}
+		try {
+			GcdFinder.modInverse(1L, 0L);
+			fail("zero modulus accepted");
+		} catch (IllegalArgumentException expected) {
+			// positive moduli only
+		}
+	}
+
+	@Test
+	void modInverseBig() {
+		for (int i = 0; i < 2000; i++) {
+			final BigInteger m = new BigInteger(1 + random.nextInt(2048),
+					random).add(BigInteger.ONE);
+			final BigInteger a = new BigInteger(random.nextInt(2100), random);
+			if (!a.gcd(m).equals(BigInteger.ONE)) {
+				continue;
+			}
+			assertEquals(a.modInverse(m), GcdFinder.modInverse(a, m));
+		}
+	}
+
+	@Test
+	void modInverseAllLong() {
+		// an odd modulus multiplies in Montgomery form, an even one does not
+		for (final long m : new long[] { 1000000007L, (1L << 62) - 57,
+				(1L << 62) + 6, 2 }) {
+			final long[] values = new long[1000];
+			for (int i = 0; i < values.length; i++) {
+				do {
+					values[i] = randomLong();
+				} while (GcdFinder.computeGcd(values[i], m) != 1);
+			}
+			final long[] expected = new long[values.length];
+			for (int i = 0; i < values.length; i++) {
+				expected[i] = GcdFinder.modInverse(values[i], m);
+			}
+			assertArrayEquals(expected, GcdFinder.modInverseAll(values, m));
+		}
+		try {
+			GcdFinder.modInverseAll(new long[] { 1, 2, 3 }, 9);
+			fail("3 has no inverse mod 9");
+		} catch (ArithmeticException expected) {
+			// gcd is 3
+		}
+	}
+
+	@Test
+	void modInverseAllBig() {
+		final BigInteger m = BigInteger.probablePrime(512, random);
+		final BigInteger[] values = new BigInteger[200];
+		final BigInteger[] expected = new BigInteger[values.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = new BigInteger(600, random).add(BigInteger.ONE);
+			expected[i] = values[i].modInverse(m);
+		}
+		assertArrayEquals(expected, GcdFinder.modInverseAll(values, m));
+	}
+
+	@Test
+	void computeBatchGcd() {
+		final BigInteger[] primes = new BigInteger[40];
+		for (int i = 0; i < primes.length; i++) {
+			primes[i] = BigInteger.probablePrime(64, random);
+		}
+		// moduli 0 and 7 share a prime, the rest are pairwise coprime
+		final BigInteger[] moduli = new BigInteger[20];
+		for (int i = 0; i < moduli.length; i++) {
+			moduli[i] = primes[2 * i].multiply(primes[2 * i + 1]);
+		}
+		moduli[7] = primes[0].multiply(primes[15]);
+
+		final BigInteger[] gcds = GcdFinder.computeBatchGcd(moduli);
+		for (int i = 0; i < moduli.length; i++) {
+			BigInteger expected = BigInteger.ONE;
+			for (int j = 0; j < moduli.length; j++) {
+				if (j != i) {
+					expected = expected.multiply(moduli[j]);
+				}
+			}
+			assertEquals(moduli[i].gcd(expected), gcds[i]);
+		}
+		assertEquals(primes[0], gcds[0]);
+		assertEquals(primes[0], gcds[7]);
+	}
+}
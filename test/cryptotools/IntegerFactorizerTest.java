@@ -0,0 +1,130 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every factorization multiplies back to its number and holds
+ * only primes.
+ */
+class IntegerFactorizerTest {
+
+	private final Random random = new Random(42);
+
+	private static void assertComplete(final BigInteger n,
+			final PrimeFactorization factorization) {
+		assertTrue(factorization.isComplete(), n.toString());
+		assertEquals(n, factorization.getNumber());
+		BigInteger product = BigInteger.ONE;
+		BigInteger previous = BigInteger.ONE;
+		for (BigInteger factor : factorization.getFactors()) {
+			assertTrue(factor.isProbablePrime(100), factor + " of " + n);
+			assertTrue(factor.compareTo(previous) >= 0, "order of " + n);
+			product = product.multiply(factor);
+			previous = factor;
+		}
+		assertEquals(n, product);
+	}
+
+	@Test
+	void smallNumbers() {
+		for (long n = 1; n < 200000; n++) {
+			final PrimeFactorization factorization = IntegerFactorizer
+					.factor(n);
+			final List<Long> expected = new ArrayList<Long>();
+			long rest = n;
+			for (long d = 2; d * d <= rest; d++) {
+				while (rest % d == 0) {
+					expected.add(d);
+					rest /= d;
+				}
+			}
+			if (rest > 1) {
+				expected.add(rest);
+			}
+			final long[] factors = factorization.getLongFactors();
+			assertEquals(expected.size(), factors.length, "count of " + n);
+			for (int i = 0; i < factors.length; i++) {
+				assertEquals(expected.get(i).longValue(), factors[i]);
+			}
+		}
+	}
+
+	@Test
+	void randomLongs() {
+		for (int i = 0; i < 300; i++) {
+			final long n = 1 + (random.nextLong() >>> 1);
+			assertComplete(BigInteger.valueOf(n), IntegerFactorizer.factor(n));
+		}
+	}
+
+	@Test
+	void hardLongs() {
+		// two 31-bit primes close together, and an unbalanced semiprime
+		final long p = BigInteger.probablePrime(31, random).longValue();
+		final long balanced = p
+				* BigInteger.valueOf(p + 1000).nextProbablePrime().longValue();
+		final long unbalanced = BigInteger.probablePrime(20, random)
+				.longValue()
+				* BigInteger.probablePrime(42, random).longValue();
+		final long squareOfPrime = p * p;
+		for (final long n : new long[] { balanced, unbalanced, squareOfPrime,
+				Long.MAX_VALUE }) {
+			assertComplete(BigInteger.valueOf(n), IntegerFactorizer.factor(n));
+		}
+		assertEquals("7^2 * 73 * 127 * 337 * 92737 * 649657",
+				IntegerFactorizer.factor(Long.MAX_VALUE).toString());
+	}
+
+	@Test
+	void bigNumbers() {
+		for (int i = 0; i < 5; i++) {
+			// small factors, two that rho finds quickly, and a large prime
+			final BigInteger n = BigInteger.valueOf(2 * 3 * 3 * 65537)
+					.multiply(BigInteger.probablePrime(32, random))
+					.multiply(BigInteger.probablePrime(36, random))
+					.multiply(BigInteger.probablePrime(100, random));
+			assertComplete(n, IntegerFactorizer.factor(n));
+		}
+	}
+
+	@Test
+	void budget() {
+		// two 128-bit primes cannot be split in 100 ms
+		final BigInteger p = BigInteger.probablePrime(128, random);
+		final BigInteger q = BigInteger.probablePrime(140, random);
+		final BigInteger n = p.multiply(q).multiply(BigInteger.valueOf(12));
+		final long start = System.nanoTime();
+		final PrimeFactorization factorization = IntegerFactorizer.factor(n,
+				100, TimeUnit.MILLISECONDS);
+		assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+		assertFalse(factorization.isComplete());
+		assertArrayEquals(new BigInteger[] { BigInteger.TWO, BigInteger.TWO,
+				BigInteger.valueOf(3) }, factorization.getFactors());
+		assertArrayEquals(new BigInteger[] { p.multiply(q) },
+				factorization.getUnfactored());
+	}
+
+	@Test
+	void factorAll() {
+		final long[] numbers = new long[100];
+		for (int i = 0; i < numbers.length; i++) {
+			numbers[i] = 1 + (random.nextLong() >>> 1);
+		}
+		final PrimeFactorization[] factorizations = IntegerFactorizer
+				.factorAll(numbers);
+		for (int i = 0; i < numbers.length; i++) {
+			assertComplete(BigInteger.valueOf(numbers[i]), factorizations[i]);
+		}
+	}
+}
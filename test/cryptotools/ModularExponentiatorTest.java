@@ -0,0 +1,154 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every exponentiation and multiplication path against
+ * {@link BigInteger}.
+ */
+class ModularExponentiatorTest {
+
+	private final Random random = new Random(42);
+
+	@Test
+	void computeModExpInt() {
+		for (int i = 0; i < 10000; i++) {
+			final int m = 1 + random.nextInt(Integer.MAX_VALUE);
+			final int b = random.nextInt(Integer.MAX_VALUE);
+			final int e = random.nextInt(Integer.MAX_VALUE);
+			assertEquals(BigInteger.valueOf(b).modPow(BigInteger.valueOf(e),
+					BigInteger.valueOf(m)).intValue(),
+					ModularExponentiator.computeModExp(b, e, m));
+		}
+	}
+
+	@Test
+	void computeModExpLong() {
+		for (int i = 0; i < 10000; i++) {
+			// odd and even moduli up to 63 bits take different paths
+			final long m = 1 + (random.nextLong() >>> (1 + random.nextInt(62)));
+			final long b = random.nextLong() >>> 1;
+			final long e = random.nextLong() >>> 1;
+			assertEquals(BigInteger.valueOf(b).modPow(BigInteger.valueOf(e),
+					BigInteger.valueOf(m)).longValue(),
+					ModularExponentiator.computeModExp(b, e, m));
+		}
+	}
+
+	@Test
+	void computeModExpBig() {
+		for (int bits = 1; bits <= 1024; bits += 37) {
+			final BigInteger m = new BigInteger(bits, random)
+					.add(BigInteger.ONE);
+			final BigInteger b = new BigInteger(bits + 8, random);
+			final BigInteger e = new BigInteger(bits, random);
+			assertEquals(b.modPow(e, m),
+					ModularExponentiator.computeModExp(b, e, m));
+		}
+	}
+
+	@Test
+	void multiplyMod() {
+		for (int i = 0; i < 10000; i++) {
+			final long m = 1 + (random.nextLong() >>> 1);
+			final long a = (random.nextLong() >>> 1) % m;
+			final long b = (random.nextLong() >>> 1) % m;
+			assertEquals(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b))
+					.mod(BigInteger.valueOf(m)).longValue(),
+					ModularExponentiator.multiplyMod(a, b, m));
+		}
+		assertEquals(1, ModularExponentiator.multiplyMod(Long.MAX_VALUE - 1,
+				Long.MAX_VALUE - 1, Long.MAX_VALUE));
+	}
+
+	@Test
+	void montgomeryMultiplier() {
+		for (int i = 0; i < 1000; i++) {
+			final long m = (random.nextLong() >>> (1 + random.nextInt(61))) | 3;
+			final MontgomeryMultiplier montgomery = new MontgomeryMultiplier(m);
+			final long a = (random.nextLong() >>> 1) % m;
+			final long b = (random.nextLong() >>> 1) % m;
+			assertEquals(a, montgomery.fromMontgomery(montgomery
+					.toMontgomery(a)));
+			assertEquals(ModularExponentiator.multiplyMod(a, b, m),
+					montgomery.fromMontgomery(montgomery.multiply(
+							montgomery.toMontgomery(a),
+							montgomery.toMontgomery(b))));
+			assertEquals(ModularExponentiator.multiplyMod(a, b, m),
+					montgomery.multiplyMod(a, b));
+			assertEquals(ModularExponentiator.computeModExp(a, b, m),
+					montgomery.modExp(a, b));
+		}
+		try {
+			new MontgomeryMultiplier(10);
+			fail("even modulus accepted");
+		} catch (IllegalArgumentException expected) {
+			// odd moduli only
+		}
+	}
+
+	@Test
+	void bigMontgomeryMultiplier() {
+		for (int bits = 2; bits <= 2048; bits += 61) {
+			final BigInteger m = new BigInteger(bits, random).setBit(0)
+					.setBit(1);
+			final BigMontgomeryMultiplier montgomery = new BigMontgomeryMultiplier(
+					m);
+			final BigInteger a = new BigInteger(bits, random).mod(m);
+			final BigInteger b = new BigInteger(bits, random).mod(m);
+			assertEquals(a, montgomery.fromMontgomery(montgomery
+					.toMontgomery(a)));
+			assertEquals(a.multiply(b).mod(m), montgomery
+					.fromMontgomery(montgomery.multiply(
+							montgomery.toMontgomery(a),
+							montgomery.toMontgomery(b))));
+		}
+	}
+
+	@Test
+	void fixedBaseExponentiator() {
+		for (int windowBits = 1; windowBits <= 8; windowBits++) {
+			for (final int bits : new int[] { 5, 64, 257, 1024 }) {
+				// odd moduli use Montgomery form, even ones plain products
+				for (final BigInteger m : new BigInteger[] {
+						new BigInteger(bits, random).setBit(0).setBit(1),
+						new BigInteger(bits, random).setBit(1).clearBit(0) }) {
+					final BigInteger base = new BigInteger(bits + 3, random);
+					final FixedBaseExponentiator fixedBase = new FixedBaseExponentiator(
+							base, m, bits, windowBits);
+					assertEquals(BigInteger.ONE.mod(m),
+							fixedBase.modExp(BigInteger.ZERO));
+					for (int i = 0; i < 4; i++) {
+						// the last exponent is wider than the table
+						final BigInteger e = new BigInteger(bits + i / 3,
+								random);
+						assertEquals(base.modPow(e, m), fixedBase.modExp(e));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void fixedBaseTableLimits() {
+		final BigInteger m = BigInteger.probablePrime(2048, random);
+		// k = 8 over 2048 bits is the widest table allowed
+		new FixedBaseExponentiator(BigInteger.TWO, m, 2048, 8);
+		for (final int[] shape : new int[][] { { 2048, 9 }, { 2048, 16 },
+				{ 65537, 1 }, { 2064, 8 } }) {
+			try {
+				new FixedBaseExponentiator(BigInteger.TWO, m, shape[0],
+						shape[1]);
+				fail(shape[0] + " bits with " + shape[1] + "-bit windows");
+			} catch (IllegalArgumentException expected) {
+				// too many residues
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks PlayfairCipher against the textbook digraph rules applied to its
+ * own table.
+ */
+class PlayfairCipherTest {
+
+	private final Random random = new Random(42);
+
+	/**
+	 * Encrypts formatted plaintext digraph by digraph on the table, which is
+	 * read back from {@link PlayfairCipher#getTableString()}.
+	 */
+	private static String encryptByRules(final PlayfairCipher cipher,
+			final String formatted) {
+		final String[] rows = cipher.getTableString().split("\n");
+		final char[][] grid = new char[5][];
+		for (int y = 0; y < 5; y++) {
+			grid[y] = rows[y].replace(" ", "").toCharArray();
+		}
+		final int[] xs = new int[128], ys = new int[128];
+		for (int y = 0; y < 5; y++) {
+			for (int x = 0; x < 5; x++) {
+				xs[grid[y][x]] = x;
+				ys[grid[y][x]] = y;
+			}
+		}
+
+		final StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < formatted.length(); i += 2) {
+			final char a = formatted.charAt(i), b = formatted.charAt(i + 1);
+			final int ax = xs[a], ay = ys[a], bx = xs[b], by = ys[b];
+			if (ay == by) {
+				sb.append(grid[ay][(ax + 1) % 5]).append(grid[by][(bx + 1) % 5]);
+			} else if (ax == bx) {
+				sb.append(grid[(ay + 1) % 5][ax]).append(grid[(by + 1) % 5][bx]);
+			} else {
+				sb.append(grid[ay][bx]).append(grid[by][ax]);
+			}
+		}
+		return sb.toString().toUpperCase();
+	}
+
+	private String randomLetters(final int length) {
+		final char[] letters = new char[length];
+		for (int i = 0; i < length; i++) {
+			// a small alphabet makes doubled letters and q's common
+			letters[i] = (char) ('m' + random.nextInt(random.nextBoolean() ? 14
+					: 5));
+		}
+		return new String(letters);
+	}
+
+	@Test
+	void encryptAndDecrypt() {
+		for (final String key : new String[] { "playfairexample", "nancy",
+				"abcdefghijklmnoprstuvwxyz", "zzz" }) {
+			final PlayfairCipher cipher = new PlayfairCipher(key);
+			for (int length = 1; length < 200; length++) {
+				final String plaintext = randomLetters(length);
+				final String formatted = cipher.formatPlaintext(plaintext);
+				if (formatted.isEmpty()) {
+					continue;
+				}
+				final String ciphertext = cipher.encrypt(plaintext);
+				assertEquals(encryptByRules(cipher, formatted), ciphertext,
+						plaintext);
+				assertEquals(formatted, cipher.decrypt(ciphertext));
+
+				final byte[] bytes = plaintext
+						.getBytes(StandardCharsets.US_ASCII);
+				final byte[] output = new byte[PlayfairCipher
+						.maxCiphertextLength(length)];
+				final int written = cipher.encryptInto(bytes, 0, length,
+						output, 0);
+				assertEquals(ciphertext, new String(output, 0, written,
+						StandardCharsets.US_ASCII));
+				cipher.decryptInto(output, 0, written, output, 0);
+				assertArrayEquals(formatted.getBytes(StandardCharsets.US_ASCII),
+						Arrays.copyOf(output, written));
+			}
+		}
+	}
+
+	@Test
+	void rejectsInvalidCiphertext() {
+		final PlayfairCipher cipher = new PlayfairCipher("nancy");
+		for (final String ciphertext : new String[] { "", "ABC", "AQ", "Ab",
+				"A B " }) {
+			try {
+				cipher.decrypt(ciphertext);
+				fail("decrypted " + ciphertext);
+			} catch (IllegalArgumentException expected) {
+				// even-length [A-Z] without Q only
+			}
+		}
+	}
+}
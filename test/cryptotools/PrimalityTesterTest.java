@@ -0,0 +1,83 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the deterministic Miller-Rabin test against trial division, known
+ * strong pseudoprimes and {@link BigInteger#isProbablePrime(int)}.
+ */
+class PrimalityTesterTest {
+
+	private final Random random = new Random(42);
+
+	private static boolean isPrimeByTrialDivision(final long n) {
+		if (n < 2) {
+			return false;
+		}
+		for (long d = 2; d * d <= n; d++) {
+			if (n % d == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Test
+	void smallNumbers() {
+		for (int n = -10; n < 200000; n++) {
+			final boolean expected = isPrimeByTrialDivision(n);
+			assertEquals(expected, PrimalityTester.isPrime(n), "int " + n);
+			assertEquals(expected, PrimalityTester.isPrime((long) n), "long "
+					+ n);
+		}
+	}
+
+	@Test
+	void strongPseudoprimes() {
+		// strong pseudoprimes to the bases 2, 2-3, 2-3-5, 2-3-5-7 and more,
+		// plus Carmichael numbers
+		final long[] composites = { 2047L, 1373653L, 25326001L,
+				3215031751L, 2152302898747L, 3474749660383L,
+				341550071728321L, 3825123056546413051L, 561L, 1105L, 1729L,
+				2465L, 2821L, 6601L, 8911L, 4759123141L, 1122004669633L };
+		for (final long n : composites) {
+			assertEquals(BigInteger.valueOf(n).isProbablePrime(100),
+					PrimalityTester.isPrime(n), Long.toString(n));
+		}
+		for (int i = 0; i < 7; i++) {
+			assertFalse(PrimalityTester.isPrime(composites[i]));
+		}
+	}
+
+	@Test
+	void randomLongs() {
+		for (int i = 0; i < 200000; i++) {
+			final long n = random.nextLong() >>> (1 + random.nextInt(62));
+			assertEquals(BigInteger.valueOf(n).isProbablePrime(100),
+					PrimalityTester.isPrime(n), Long.toString(n));
+		}
+		assertEquals(true, PrimalityTester.isPrime(Long.MAX_VALUE - 24));
+		assertEquals(false, PrimalityTester.isPrime(Long.MAX_VALUE));
+		assertEquals(true, PrimalityTester.isPrime(Integer.MAX_VALUE));
+	}
+
+	@Test
+	void testAll() {
+		final long[] candidates = new long[20000];
+		final boolean[] expected = new boolean[candidates.length];
+		for (int i = 0; i < candidates.length; i++) {
+			candidates[i] = random.nextLong() >>> (1 + random.nextInt(62));
+			expected[i] = PrimalityTester.isPrime(candidates[i]);
+		}
+		assertArrayEquals(expected, PrimalityTester.testAll(candidates));
+		assertArrayEquals(expected, PrimalityTester
+				.testAllParallel(candidates));
+	}
+}
@@ -0,0 +1,92 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks prime counts against known values of pi(x) and the enumerations
+ * against {@link PrimalityTester}.
+ */
+class PrimeSieveTest {
+
+	private final Random random = new Random(42);
+
+	@Test
+	void countPrimesFromZero() {
+		// pi(10^k) for k = 0..8
+		final long[] pi = { 0, 4, 25, 168, 1229, 9592, 78498, 664579,
+				5761455 };
+		long power = 1;
+		for (int k = 0; k < pi.length; k++) {
+			assertEquals(pi[k], PrimeSieve.countPrimes(0, power + 1), "10^"
+					+ k);
+			power *= 10;
+		}
+		assertEquals(50847534, PrimeSieve.countPrimesParallel(0, 1000000000));
+	}
+
+	@Test
+	void countPrimesInRanges() {
+		for (int i = 0; i < 200; i++) {
+			// ranges anywhere below the limit, including near its end
+			final long from = i % 2 == 0 ? random.nextInt(1 << 22)
+					: PrimeSieve.LIMIT - 1 - random.nextInt(1 << 22);
+			final long to = Math.min(PrimeSieve.LIMIT,
+					from + random.nextInt(20000));
+			long expected = 0;
+			for (long n = from; n < to; n++) {
+				if (PrimalityTester.isPrime(n)) {
+					expected++;
+				}
+			}
+			assertEquals(expected, PrimeSieve.countPrimes(from, to), from
+					+ ".." + to);
+			assertEquals(expected, PrimeSieve.countPrimesParallel(from, to));
+		}
+	}
+
+	@Test
+	void enumerations() {
+		final long from = PrimeSieve.LIMIT - 3000000, to = PrimeSieve.LIMIT;
+		final long[] next = { from };
+		PrimeSieve.forEachPrime(from, to, new LongConsumer() {
+			public void accept(final long prime) {
+				// every number skipped since the last prime is composite
+				for (long n = next[0]; n < prime; n++) {
+					assertFalse(PrimalityTester.isPrime(n), Long.toString(n));
+				}
+				assertEquals(true, PrimalityTester.isPrime(prime));
+				next[0] = prime + 1;
+			}
+		});
+
+		final PrimitiveIterator.OfLong primes = PrimeSieve.iterator(0, 100000);
+		for (long n = 0; n < 100000; n++) {
+			if (PrimalityTester.isPrime(n)) {
+				assertEquals(n, primes.nextLong());
+			}
+		}
+		assertFalse(primes.hasNext());
+	}
+
+	@Test
+	void isPrime() {
+		for (int i = 0; i < 100000; i++) {
+			final long n = random.nextLong() >>> (24 + random.nextInt(40));
+			assertEquals(PrimalityTester.isPrime(n), PrimeSieve.isPrime(n));
+		}
+		try {
+			PrimeSieve.countPrimes(0, PrimeSieve.LIMIT + 1);
+			fail("range past the limit accepted");
+		} catch (IllegalArgumentException expected) {
+			// 2^40 at most
+		}
+	}
+}
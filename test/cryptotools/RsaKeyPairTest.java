@@ -0,0 +1,87 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks RSA round trips, and that the CRT path agrees with the full-width
+ * one.
+ */
+class RsaKeyPairTest {
+
+	private final Random random = new Random(42);
+
+	@Test
+	void roundTrips() {
+		for (final int bits : new int[] { 16, 17, 64, 129, 512, 1024, 2048 }) {
+			final int keys = bits > 512 ? 2 : 20;
+			for (int k = 0; k < keys; k++) {
+				final BigInteger e = bits < 64 ? BigInteger.valueOf(3)
+						: RsaKeyPair.DEFAULT_PUBLIC_EXPONENT;
+				final RsaKeyPair keyPair = RsaKeyPair.generate(bits, e, random);
+				final BigInteger n = keyPair.getModulus();
+				assertEquals(bits, n.bitLength());
+
+				final BigInteger[] messages = new BigInteger[16];
+				for (int i = 0; i < messages.length; i++) {
+					messages[i] = new BigInteger(bits + 8, random).mod(n);
+					final BigInteger ciphertext = keyPair.encrypt(messages[i]);
+					assertEquals(messages[i], keyPair.decrypt(ciphertext));
+					assertEquals(messages[i],
+							keyPair.decryptWithoutCrt(ciphertext));
+
+					final BigInteger signature = keyPair.sign(messages[i]);
+					assertTrue(keyPair.verify(messages[i], signature));
+					assertFalse(keyPair.verify(messages[i], signature.add(
+							BigInteger.ONE).mod(n)));
+				}
+
+				final BigInteger[] signatures = new BigInteger[messages.length];
+				for (int i = 0; i < messages.length; i++) {
+					signatures[i] = keyPair.sign(messages[i]);
+				}
+				assertArrayEquals(signatures, keyPair.signAll(messages));
+			}
+		}
+	}
+
+	@Test
+	void privateExponent() {
+		// lcm(10, 4) = 20 and 3 * 7 = 21
+		final RsaKeyPair keyPair = new RsaKeyPair(BigInteger.valueOf(11),
+				BigInteger.valueOf(5), BigInteger.valueOf(3));
+		assertEquals(BigInteger.valueOf(7), keyPair.getPrivateExponent());
+		assertEquals(BigInteger.valueOf(55), keyPair.getModulus());
+	}
+
+	@Test
+	void invalidArguments() {
+		try {
+			// 3 divides 7 - 1
+			new RsaKeyPair(BigInteger.valueOf(7), BigInteger.valueOf(11),
+					BigInteger.valueOf(3));
+			fail("public exponent not coprime to p - 1 accepted");
+		} catch (IllegalArgumentException expected) {
+			// no private exponent exists
+		}
+		final RsaKeyPair keyPair = RsaKeyPair.generate(64,
+				RsaKeyPair.DEFAULT_PUBLIC_EXPONENT, random);
+		for (final BigInteger message : new BigInteger[] {
+				BigInteger.ONE.negate(), keyPair.getModulus() }) {
+			try {
+				keyPair.encrypt(message);
+				fail(message + " accepted");
+			} catch (IllegalArgumentException expected) {
+				// messages must be within [0, n)
+			}
+		}
+	}
+}
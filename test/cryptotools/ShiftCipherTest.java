@@ -0,0 +1,234 @@
+package cryptotools;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks every ShiftCipher path against a plain per-letter shift, across
+ * lengths on both sides of the bulk threshold and of the vector length.
+ * Each test runs on the table path, the eight-byte path and, where the JVM
+ * supports it, the Vector API path.
+ */
+class ShiftCipherTest {
+
+	private final Random random = new Random(42);
+
+	private interface PathTest {
+		void run();
+	}
+
+	/**
+	 * Runs <code>test</code> once per bulk path, restoring the settings
+	 * afterwards.
+	 */
+	private static void onEveryPath(final PathTest test) {
+		final boolean bulk = ShiftCipher.isBulkEnabled();
+		final boolean vector = ShiftCipher.isVectorEnabled();
+		try {
+			ShiftCipher.setBulkEnabled(false);
+			ShiftCipher.setVectorEnabled(false);
+			test.run();
+			ShiftCipher.setBulkEnabled(true);
+			test.run();
+			if (ShiftCipher.isVectorSupported()) {
+				ShiftCipher.setVectorEnabled(true);
+				test.run();
+			}
+		} finally {
+			ShiftCipher.setBulkEnabled(bulk);
+			ShiftCipher.setVectorEnabled(vector);
+		}
+	}
+
+	private static String shift(final String text, final char from,
+			final int key, final char to) {
+		final StringBuilder sb = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			sb.append((char) (to + (text.charAt(i) - from + key) % 26));
+		}
+		return sb.toString();
+	}
+
+	private String randomLetters(final int length) {
+		final char[] letters = new char[length];
+		for (int i = 0; i < length; i++) {
+			letters[i] = (char) ('a' + random.nextInt(26));
+		}
+		return new String(letters);
+	}
+
+	@Test
+	void encryptAndDecrypt() {
+		onEveryPath(new PathTest() {
+			public void run() {
+				for (int key = 0; key < 26; key++) {
+					final ShiftCipher cipher = new ShiftCipher(key);
+					for (int length = 1; length < 300; length += 1 + length / 8) {
+						final String plaintext = randomLetters(length);
+						final String ciphertext = shift(plaintext, 'a', key,
+								'A');
+						assertEquals(ciphertext, cipher.encrypt(plaintext));
+						assertEquals(plaintext, cipher.decrypt(ciphertext));
+					}
+				}
+			}
+		});
+	}
+
+	@Test
+	void rejectsInvalidCharacters() {
+		onEveryPath(new PathTest() {
+			public void run() {
+				rejectInvalidCharacters();
+			}
+		});
+	}
+
+	private void rejectInvalidCharacters() {
+		final ShiftCipher cipher = new ShiftCipher(3);
+		// each one sits just outside [a-z] or [A-Z], or outside Latin-1
+		final char[] invalid = { 'a' - 1, 'z' + 1, 'A', 'Z', ' ', '\u00e1',
+				'\u0101', '\uffff' };
+		for (final int length : new int[] { 1, 7, 63, 64, 65, 200, 1000 }) {
+			for (final char c : invalid) {
+				final char[] chars = randomLetters(length).toCharArray();
+				chars[random.nextInt(length)] = c;
+				try {
+					cipher.encrypt(new String(chars));
+					fail("encrypted " + (int) c);
+				} catch (IllegalArgumentException expected) {
+					// plaintext is [a-z] only
+				}
+				final char[] upper = new String(chars).toUpperCase()
+						.toCharArray();
+				upper[random.nextInt(length)] = Character.toLowerCase(c);
+				try {
+					cipher.decrypt(new String(upper));
+					fail("decrypted " + (int) c);
+				} catch (IllegalArgumentException expected) {
+					// ciphertext is [A-Z] only
+				}
+			}
+		}
+	}
+
+	@Test
+	void bytesAndBuffers() {
+		onEveryPath(new PathTest() {
+			public void run() {
+				encryptBytesAndBuffers();
+			}
+		});
+	}
+
+	private void encryptBytesAndBuffers() {
+		final ShiftCipher cipher = new ShiftCipher(11);
+		for (int length = 0; length < 300; length++) {
+			final String plaintext = randomLetters(length);
+			final byte[] expected = shift(plaintext, 'a', 11, 'A').getBytes(
+					StandardCharsets.US_ASCII);
+
+			final byte[] bytes = plaintext.getBytes(StandardCharsets.US_ASCII);
+			final byte[] output = new byte[length + 3];
+			cipher.encryptInto(bytes, 0, length, output, 3);
+			assertArrayEquals(expected, Arrays.copyOfRange(output, 3,
+					length + 3));
+			cipher.decryptInto(output, 3, length, output, 3);
+			assertArrayEquals(bytes, Arrays.copyOfRange(output, 3, length + 3));
+
+			for (final ByteBuffer buffer : new ByteBuffer[] {
+					ByteBuffer.allocate(length + 2),
+					ByteBuffer.allocateDirect(length + 2) }) {
+				buffer.position(1);
+				buffer.put(bytes);
+				buffer.position(1).limit(length + 1);
+				cipher.encrypt(buffer);
+				final byte[] encrypted = new byte[length];
+				buffer.duplicate().get(encrypted);
+				assertArrayEquals(expected, encrypted);
+				cipher.decrypt(buffer);
+				final byte[] decrypted = new byte[length];
+				buffer.get(decrypted);
+				assertArrayEquals(bytes, decrypted);
+			}
+		}
+	}
+
+	@Test
+	void rejectsInvalidBytes() {
+		onEveryPath(new PathTest() {
+			public void run() {
+				final ShiftCipher cipher = new ShiftCipher(3);
+				for (final int length : new int[] { 1, 31, 64, 200, 1000 }) {
+					final byte[] bytes = randomLetters(length).getBytes(
+							StandardCharsets.US_ASCII);
+					bytes[random.nextInt(length)] = (byte) (random
+							.nextBoolean() ? '{' : 0xe1);
+					try {
+						cipher.encryptInto(bytes, 0, length, new byte[length],
+								0);
+						fail("encrypted an invalid byte");
+					} catch (IllegalArgumentException expected) {
+						// plaintext is [a-z] only
+					}
+					final ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+					buffer.put(bytes).flip();
+					try {
+						cipher.encrypt(buffer);
+						fail("encrypted an invalid byte");
+					} catch (IllegalArgumentException expected) {
+						// plaintext is [a-z] only
+					}
+				}
+			}
+		});
+	}
+
+	@Test
+	void parallel() {
+		final ShiftCipher cipher = new ShiftCipher(25);
+		final String plaintext = randomLetters(300000);
+		final char[] output = new char[plaintext.length()];
+		cipher.encryptParallel(plaintext.toCharArray(), 0, output.length,
+				output, 0, ForkJoinPool.commonPool(), 1000);
+		assertEquals(shift(plaintext, 'a', 25, 'A'), new String(output));
+		cipher.decryptParallel(output, 0, output.length, output, 0,
+				ForkJoinPool.commonPool(), 1000);
+		assertEquals(plaintext, new String(output));
+	}
+
+	@Test
+	void batches() {
+		final ShiftCipher cipher = new ShiftCipher(5);
+		final String[] plaintexts = new String[50];
+		final String[] expected = new String[plaintexts.length];
+		for (int i = 0; i < plaintexts.length; i++) {
+			plaintexts[i] = randomLetters(1 + random.nextInt(500));
+			expected[i] = shift(plaintexts[i], 'a', 5, 'A');
+		}
+		final String[] ciphertexts = new String[plaintexts.length];
+		cipher.encryptAll(plaintexts, ciphertexts);
+		assertArrayEquals(expected, ciphertexts);
+		final List<String> decrypted = cipher.decryptAll(Arrays
+				.asList(ciphertexts));
+		assertEquals(Arrays.asList(plaintexts), decrypted);
+	}
+
+	@Test
+	void encryptLettersInto() {
+		final ShiftCipher cipher = new ShiftCipher(1);
+		final char[] text = "Hello, World! z".toCharArray();
+		cipher.encryptLettersInto(text, 0, text.length, text, 0);
+		assertEquals("IFMMP, XPSME! A", new String(text));
+	}
+}